@@ -0,0 +1,20 @@
+package hr.ipicek.jamb.ai;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+
+
+// Odluka bota: ili ponovno bacanje s holdMask, ili upis u kategoriju
+public record Decision(int holdMask, ScoreCategory category, double expectedValue) {
+
+    public static Decision reroll(int holdMask, double expectedValue) {
+        return new Decision(holdMask, null, expectedValue);
+    }
+
+    public static Decision score(ScoreCategory category, double expectedValue) {
+        return new Decision(0, category, expectedValue);
+    }
+
+    public boolean isReroll() {
+        return category == null;
+    }
+}
@@ -0,0 +1,183 @@
+package hr.ipicek.jamb.ai;
+
+import hr.ipicek.jamb.util.ScoreTable;
+
+import java.util.Arrays;
+
+
+// Precomputed prijelazi za solver: koje kockice zadržati (keep) -> vjerojatnosti ishoda ponovnog bacanja.
+// Keep je pod-multiset bačenih kockica (462 mogućnosti za 0-5 kockica).
+final class DiceTransitions {
+
+    static final int DICE = ScoreTable.DICE_COUNT;
+    static final int FACES = ScoreTable.FACES;
+    static final int MULTISETS = ScoreTable.MULTISET_COUNT;
+
+    static final int KEEP_COUNT;
+    static final int EMPTY_KEEP;
+
+    // keep -> indeksi multiseta nakon bacanja i njihove vjerojatnosti
+    static final int[][] OUTCOME_INDEX;
+    static final double[][] OUTCOME_PROB;
+
+    // multiset -> svi različiti keep-ovi koje je moguće zadržati
+    static final int[][] KEEPS_OF;
+
+    // histogram zadržanih kockica (broj po licu, baza 6) -> keep indeks
+    private static final short[] HISTOGRAM_TO_KEEP = new short[pow(FACES, FACES)];
+
+    static {
+        int[][] histograms = new int[512][];
+        int count = 0;
+        int[] h = new int[FACES];
+        // svi histogrami sa zbrojem 0..5
+        for (int total = 0; total <= DICE; total++) {
+            count = enumerate(h, 0, total, histograms, count);
+        }
+        KEEP_COUNT = count;
+        OUTCOME_INDEX = new int[KEEP_COUNT][];
+        OUTCOME_PROB = new double[KEEP_COUNT][];
+        Arrays.fill(HISTOGRAM_TO_KEEP, (short) -1);
+
+        int empty = -1;
+        for (int keep = 0; keep < KEEP_COUNT; keep++) {
+            HISTOGRAM_TO_KEEP[histogramKey(histograms[keep])] = (short) keep;
+            if (sum(histograms[keep]) == 0) empty = keep;
+        }
+        EMPTY_KEEP = empty;
+
+        for (int keep = 0; keep < KEEP_COUNT; keep++) {
+            buildOutcomes(keep, histograms[keep]);
+        }
+
+        KEEPS_OF = new int[MULTISETS][];
+        int[] found = new int[1 << DICE];
+        for (int ms = 0; ms < MULTISETS; ms++) {
+            int[] dice = ScoreTable.dice(ms);
+            int n = 0;
+            for (int holdMask = 0; holdMask < (1 << DICE); holdMask++) {
+                int keep = keepOf(dice, holdMask);
+                boolean duplicate = false;
+                for (int i = 0; i < n && !duplicate; i++) {
+                    duplicate = found[i] == keep;
+                }
+                if (!duplicate) found[n++] = keep;
+            }
+            KEEPS_OF[ms] = Arrays.copyOf(found, n);
+        }
+    }
+
+    private DiceTransitions() {}
+
+    // Keep indeks za kockice na pozicijama označenim u holdMask
+    static int keepOf(int[] dice, int holdMask) {
+        int key = 0;
+        for (int i = 0; i < DICE; i++) {
+            if ((holdMask & (1 << i)) != 0) {
+                key += pow(FACES, dice[i] - 1);
+            }
+        }
+        return HISTOGRAM_TO_KEEP[key];
+    }
+
+    // out[keep] = očekivana vrijednost nakon bacanja nezadržanih kockica
+    static void keepValues(double[] values, double[] out) {
+        for (int keep = 0; keep < KEEP_COUNT; keep++) {
+            int[] index = OUTCOME_INDEX[keep];
+            double[] prob = OUTCOME_PROB[keep];
+            double ev = 0;
+            for (int i = 0; i < index.length; i++) {
+                ev += prob[i] * values[index[i]];
+            }
+            out[keep] = ev;
+        }
+    }
+
+    // out[ms] = najbolji keep za multiset
+    static void bestKeeps(double[] keepValues, double[] out) {
+        for (int ms = 0; ms < MULTISETS; ms++) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (int keep : KEEPS_OF[ms]) {
+                best = Math.max(best, keepValues[keep]);
+            }
+            out[ms] = best;
+        }
+    }
+
+    static double expectedAfterRoll(int keep, double[] values) {
+        int[] index = OUTCOME_INDEX[keep];
+        double[] prob = OUTCOME_PROB[keep];
+        double ev = 0;
+        for (int i = 0; i < index.length; i++) {
+            ev += prob[i] * values[index[i]];
+        }
+        return ev;
+    }
+
+    private static int enumerate(int[] h, int face, int remaining, int[][] out, int count) {
+        if (face == FACES - 1) {
+            h[face] = remaining;
+            out[count] = h.clone();
+            return count + 1;
+        }
+        for (int c = 0; c <= remaining; c++) {
+            h[face] = c;
+            count = enumerate(h, face + 1, remaining - c, out, count);
+        }
+        return count;
+    }
+
+    private static void buildOutcomes(int keep, int[] kept) {
+        int rolled = DICE - sum(kept);
+        int[][] rolls = new int[MULTISETS][];
+        int n = enumerate(new int[FACES], 0, rolled, rolls, 0);
+
+        int[] index = new int[n];
+        double[] prob = new double[n];
+        double all = Math.pow(FACES, rolled);
+        int[] dice = new int[DICE];
+
+        for (int i = 0; i < n; i++) {
+            int[] r = rolls[i];
+            // multinomni koeficijent: rolled! / prod(r_f!)
+            double ways = factorial(rolled);
+            int d = 0;
+            for (int f = 0; f < FACES; f++) {
+                ways /= factorial(r[f]);
+                for (int c = 0; c < kept[f] + r[f]; c++) {
+                    dice[d++] = f + 1;
+                }
+            }
+            index[i] = ScoreTable.indexOf(dice);
+            prob[i] = ways / all;
+        }
+        OUTCOME_INDEX[keep] = index;
+        OUTCOME_PROB[keep] = prob;
+    }
+
+    private static int histogramKey(int[] h) {
+        int key = 0;
+        for (int f = FACES - 1; f >= 0; f--) {
+            key = key * FACES + h[f];
+        }
+        return key;
+    }
+
+    private static int sum(int[] h) {
+        int s = 0;
+        for (int c : h) s += c;
+        return s;
+    }
+
+    private static double factorial(int n) {
+        double f = 1;
+        for (int i = 2; i <= n; i++) f *= i;
+        return f;
+    }
+
+    private static int pow(int base, int exp) {
+        int r = 1;
+        for (int i = 0; i < exp; i++) r *= base;
+        return r;
+    }
+}
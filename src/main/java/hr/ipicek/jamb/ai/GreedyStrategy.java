@@ -0,0 +1,51 @@
+package hr.ipicek.jamb.ai;
+
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.model.ScoreCategory;
+import hr.ipicek.jamb.util.ScoreTable;
+
+import java.util.random.RandomGenerator;
+
+
+// Jednostavna strategija: drži najčešće lice, na kraju upisuje najviše bodova
+public final class GreedyStrategy implements Strategy {
+
+    private static final ScoreCategory[] CATEGORIES = ScoreCategory.values();
+
+    @Override
+    public Decision decide(int filledMask, int[] dice, int rollCount, RandomGenerator rng) {
+        int ms = ScoreTable.indexOf(dice);
+
+        int bestCategory = -1;
+        int bestScore = -1;
+        for (int c = 0; c < ScoreCard.CATEGORY_COUNT; c++) {
+            if ((filledMask & (1 << c)) == 0 && ScoreTable.score(ms, c) > bestScore) {
+                bestScore = ScoreTable.score(ms, c);
+                bestCategory = c;
+            }
+        }
+
+        if (rollCount >= GameCore.MAX_ROLLS) {
+            return Decision.score(CATEGORIES[bestCategory], bestScore);
+        }
+
+        int[] counts = new int[ScoreTable.FACES + 1];
+        int bestFace = 1;
+        for (int v : dice) {
+            counts[v]++;
+            if (counts[v] > counts[bestFace] || (counts[v] == counts[bestFace] && v > bestFace)) {
+                bestFace = v;
+            }
+        }
+        if (counts[bestFace] == dice.length) {
+            return Decision.score(CATEGORIES[bestCategory], bestScore);
+        }
+
+        int holdMask = 0;
+        for (int i = 0; i < dice.length; i++) {
+            if (dice[i] == bestFace) holdMask |= 1 << i;
+        }
+        return Decision.reroll(holdMask, bestScore);
+    }
+}
@@ -0,0 +1,153 @@
+package hr.ipicek.jamb.ai;
+
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.model.ScoreCategory;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.ScoreTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+
+// Bot koji igra optimalno za solitaire Jamb nad tablicom očekivanih vrijednosti iz StrategySolver-a.
+// Tablica je u binarnoj datoteci (header + 8192 float-a) koja se memory-mapira pri učitavanju.
+public final class OptimalStrategy implements Strategy {
+
+    public static final Path DEFAULT_FILE = Path.of("data", "jamb_strategy.bin");
+
+    private static final int MAGIC = 0x4A414D42; // "JAMB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    private static final ScoreCategory[] CATEGORIES = ScoreCategory.values();
+
+    private final FloatBuffer table;
+
+    private OptimalStrategy(FloatBuffer table) {
+        this.table = table;
+    }
+
+    public static OptimalStrategy fromTable(float[] table) {
+        return new OptimalStrategy(FloatBuffer.wrap(table.clone()));
+    }
+
+    // Učitava datoteku ako postoji, inače rješava i sprema tablicu
+    public static OptimalStrategy loadOrSolve(Path file) throws IOException {
+        if (Files.exists(file)) {
+            try {
+                return load(file);
+            } catch (IOException e) {
+                Logger.warn("OptimalStrategy", "Neispravna datoteka strategije, ponovno rješavanje: " + e.getMessage());
+            }
+        }
+        write(file, StrategySolver.solve());
+        return load(file);
+    }
+
+    public static OptimalStrategy load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long expectedSize = HEADER_SIZE + (long) StrategySolver.STATE_COUNT * Float.BYTES;
+            if (channel.size() != expectedSize) {
+                throw new IOException("Neočekivana veličina datoteke: " + channel.size());
+            }
+
+            // Mapiranje ostaje valjano i nakon zatvaranja kanala
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(Integer.BYTES) != VERSION
+                    || mapped.getInt(2 * Integer.BYTES) != StrategySolver.STATE_COUNT) {
+                throw new IOException("Nepoznat format datoteke strategije: " + file);
+            }
+            return new OptimalStrategy(mapped.slice(HEADER_SIZE, (int) expectedSize - HEADER_SIZE).asFloatBuffer());
+        }
+    }
+
+    public static void write(Path file, float[] table) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + table.length * Float.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(table.length);
+        buffer.asFloatBuffer().put(table);
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // Očekivani bodovi do kraja igre s početka poteza
+    public double expectedScore(int filledMask) {
+        return table.get(filledMask);
+    }
+
+    // Najbolja odluka za trenutne kockice; rollCount = broj iskorištenih bacanja (1..MAX_ROLLS)
+    public Decision decide(int filledMask, int[] dice, int rollCount) {
+        if (filledMask == ScoreCard.FULL_MASK) {
+            throw new IllegalArgumentException("Sve kategorije su već popunjene.");
+        }
+
+        int ms = ScoreTable.indexOf(dice);
+        int rollsLeft = Math.max(0, GameCore.MAX_ROLLS - rollCount);
+
+        // Najbolji upis odmah
+        int bestCategory = -1;
+        double bestScoreNow = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < ScoreCard.CATEGORY_COUNT; c++) {
+            if ((filledMask & (1 << c)) == 0) {
+                double value = ScoreTable.score(ms, c) + table.get(filledMask | (1 << c));
+                if (value > bestScoreNow) {
+                    bestScoreNow = value;
+                    bestCategory = c;
+                }
+            }
+        }
+        if (rollsLeft == 0) {
+            return Decision.score(CATEGORIES[bestCategory], bestScoreNow);
+        }
+
+        // Vrijednosti multiseta nakon sljedećeg bacanja (s rollsLeft - 1 preostalih)
+        double[] values = new double[ScoreTable.MULTISET_COUNT];
+        double[] next = new double[ScoreTable.MULTISET_COUNT];
+        double[] keeps = new double[DiceTransitions.KEEP_COUNT];
+        StrategySolver.finalRollValues(filledMask, table::get, values);
+        for (int r = 1; r < rollsLeft; r++) {
+            DiceTransitions.keepValues(values, keeps);
+            DiceTransitions.bestKeeps(keeps, next);
+            double[] tmp = values;
+            values = next;
+            next = tmp;
+        }
+
+        int bestHold = -1;
+        double bestReroll = Double.NEGATIVE_INFINITY;
+        int allHeld = (1 << dice.length) - 1;
+        for (int holdMask = 0; holdMask < allHeld; holdMask++) {
+            double value = DiceTransitions.expectedAfterRoll(DiceTransitions.keepOf(dice, holdMask), values);
+            if (value > bestReroll) {
+                bestReroll = value;
+                bestHold = holdMask;
+            }
+        }
+
+        if (bestScoreNow >= bestReroll) {
+            return Decision.score(CATEGORIES[bestCategory], bestScoreNow);
+        }
+        return Decision.reroll(bestHold, bestReroll);
+    }
+
+    @Override
+    public Decision decide(int filledMask, int[] dice, int rollCount, RandomGenerator rng) {
+        return decide(filledMask, dice, rollCount);
+    }
+}
@@ -0,0 +1,15 @@
+package hr.ipicek.jamb.ai;
+
+import java.util.random.RandomGenerator;
+
+
+// Strategija igrača za botove i simulacije
+public interface Strategy {
+
+    // rollCount = broj iskorištenih bacanja u potezu (1..MAX_ROLLS)
+    Decision decide(int filledMask, int[] dice, int rollCount, RandomGenerator rng);
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,123 @@
+package hr.ipicek.jamb.ai;
+
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.ScoreTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+// Egzaktni DP solver za solitaire Jamb.
+// Stanje je maska popunjenih kategorija (2^13); vrijednost je očekivani zbroj bodova do kraja igre
+// s početka poteza (prije prvog bacanja). Pravila nemaju bonus za gornji dio - kad bi se dodao,
+// stanje bi trebalo proširiti zbrojem gornjeg dijela.
+public final class StrategySolver {
+
+    public static final int STATE_COUNT = 1 << ScoreCard.CATEGORY_COUNT;
+    private static final int TASK_THRESHOLD = 16;
+
+    private StrategySolver() {}
+
+    public static float[] solve() {
+        return solve(ForkJoinPool.commonPool());
+    }
+
+    // Rješava razinu po razinu (po broju popunjenih kategorija, od punih prema praznim);
+    // stanja unutar razine su neovisna pa se računaju paralelno
+    public static float[] solve(ForkJoinPool pool) {
+        float[] table = new float[STATE_COUNT];
+
+        List<List<Integer>> levels = new ArrayList<>();
+        for (int i = 0; i <= ScoreCard.CATEGORY_COUNT; i++) {
+            levels.add(new ArrayList<>());
+        }
+        for (int mask = 0; mask < STATE_COUNT; mask++) {
+            levels.get(Integer.bitCount(mask)).add(mask);
+        }
+
+        // Puna lista vrijedi 0, kreni od razine ispod
+        for (int level = ScoreCard.CATEGORY_COUNT - 1; level >= 0; level--) {
+            int[] masks = levels.get(level).stream().mapToInt(Integer::intValue).toArray();
+            pool.invoke(new LevelTask(table, masks, 0, masks.length));
+        }
+        return table;
+    }
+
+    // Očekivana vrijednost s početka poteza za danu masku
+    static double solveState(int mask, FloatTable table, double[] values, double[] keeps, double[] next) {
+        finalRollValues(mask, table, values);
+        double[] current = values;
+        for (int r = 1; r < GameCore.MAX_ROLLS; r++) {
+            DiceTransitions.keepValues(current, keeps);
+            DiceTransitions.bestKeeps(keeps, next);
+            double[] tmp = current;
+            current = next;
+            next = tmp;
+        }
+        return DiceTransitions.expectedAfterRoll(DiceTransitions.EMPTY_KEEP, current);
+    }
+
+    // values[ms] = najbolji upis kad više nema bacanja
+    static void finalRollValues(int mask, FloatTable table, double[] values) {
+        for (int ms = 0; ms < ScoreTable.MULTISET_COUNT; ms++) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < ScoreCard.CATEGORY_COUNT; c++) {
+                if ((mask & (1 << c)) == 0) {
+                    best = Math.max(best, ScoreTable.score(ms, c) + table.get(mask | (1 << c)));
+                }
+            }
+            values[ms] = best;
+        }
+    }
+
+    // Pristup tablici neovisan o tome je li u memoriji ili memory-mapped
+    interface FloatTable {
+        float get(int mask);
+    }
+
+    private static final class LevelTask extends RecursiveAction {
+        private final float[] table;
+        private final int[] masks;
+        private final int from;
+        private final int to;
+
+        LevelTask(float[] table, int[] masks, int from, int to) {
+            this.table = table;
+            this.masks = masks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_THRESHOLD) {
+                double[] values = new double[ScoreTable.MULTISET_COUNT];
+                double[] next = new double[ScoreTable.MULTISET_COUNT];
+                double[] keeps = new double[DiceTransitions.KEEP_COUNT];
+                for (int i = from; i < to; i++) {
+                    table[masks[i]] = (float) solveState(masks[i], m -> table[m], values, keeps, next);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new LevelTask(table, masks, from, mid), new LevelTask(table, masks, mid, to));
+        }
+    }
+
+    // Generira datoteku strategije: java ... StrategySolver [putanja]
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : OptimalStrategy.DEFAULT_FILE;
+        long start = System.nanoTime();
+        float[] table = solve();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        OptimalStrategy.write(file, table);
+        Logger.info("StrategySolver", "Riješeno %d stanja za %d ms, očekivani rezultat: %.2f -> %s",
+                STATE_COUNT, millis, table[0], file);
+    }
+}
@@ -3,7 +3,9 @@ package hr.ipicek.jamb.controller;
 import hr.ipicek.jamb.network.NetworkGameEngine;
 import hr.ipicek.jamb.network.NetworkGameManager;
 import hr.ipicek.jamb.util.DialogUtils;
+import hr.ipicek.jamb.util.NetworkConstants;
 import hr.ipicek.jamb.util.SceneUtils;
+import hr.ipicek.jamb.util.ThreadUtils;
 import hr.ipicek.jamb.util.ViewPaths;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -22,6 +24,7 @@ import java.net.InetAddress;
 public class HostGameController {
 
     @FXML private TextField txtServerPort;
+    @FXML private TextField txtMaxPlayers;
     @FXML private Button btnStartServer;
     @FXML private Button btnStartGame;
     @FXML private Label lblGameStatus;
@@ -43,7 +46,8 @@ public class HostGameController {
     @FXML
     public void initialize() {
         lblGameStatus.setText("Server nije pokrenut");
-        lblPlayersCount.setText("0 / 2");
+        txtMaxPlayers.setText(String.valueOf(NetworkConstants.DEFAULT_PLAYERS));
+        lblPlayersCount.setText("0 / " + NetworkConstants.DEFAULT_PLAYERS);
     }
 
     @FXML
@@ -57,15 +61,23 @@ public class HostGameController {
 
         try {
             int port = Integer.parseInt(portStr);
+            int maxPlayers = Integer.parseInt(txtMaxPlayers.getText().trim());
+
+            if (maxPlayers < NetworkConstants.MIN_PLAYERS || maxPlayers > NetworkConstants.MAX_PLAYERS) {
+                showError("Broj igrača mora biti od " + NetworkConstants.MIN_PLAYERS
+                        + " do " + NetworkConstants.MAX_PLAYERS + "!");
+                return;
+            }
 
             btnStartServer.setDisable(true);
             txtServerPort.setDisable(true);
+            txtMaxPlayers.setDisable(true);
             lblGameStatus.setText("Pokretanje servera...");
 
             // Pokreni server u background thread-u
-            new Thread(() -> {
+            ThreadUtils.start("Host-StartServer", () -> {
                 try {
-                    gameEngine = gameManager.createGame(playerName, port);
+                    gameEngine = gameManager.createGame(playerName, port, maxPlayers);
 
                     Platform.runLater(() -> {
                         lblGameStatus.setText("✓ Server pokrenut - čekanje igrača");
@@ -82,12 +94,14 @@ public class HostGameController {
                         // Bind players count
                         gameEngine.playersInLobbyProperty().addListener((obs, oldVal, newVal) -> {
                             Platform.runLater(() -> {
-                                lblPlayersCount.setText(newVal + " / 2");
+                                lblPlayersCount.setText(newVal + " / " + maxPlayers);
 
-                                // Omogući Start Game button kad se pridruži drugi igrač
-                                if (newVal.intValue() >= 2) {
+                                // Omogući Start Game button čim ima dovoljno igrača (host može krenuti i prije punog stola)
+                                if (newVal.intValue() >= NetworkConstants.MIN_PLAYERS) {
                                     btnStartGame.setDisable(false);
-                                    lblGameStatus.setText("✓ Svi igrači se pridružili!");
+                                    lblGameStatus.setText(newVal.intValue() >= maxPlayers
+                                            ? "✓ Svi igrači se pridružili!"
+                                            : "✓ Igra se može pokrenuti");
                                 }
                             });
                         });
@@ -98,7 +112,7 @@ public class HostGameController {
                         });
 
                         // Update initial count
-                        lblPlayersCount.setText(gameEngine.playersInLobbyProperty().get() + " / 2");
+                        lblPlayersCount.setText(gameEngine.playersInLobbyProperty().get() + " / " + maxPlayers);
                     });
 
                 } catch (Exception e) {
@@ -107,13 +121,14 @@ public class HostGameController {
                         lblGameStatus.setStyle("-fx-text-fill: red;");
                         btnStartServer.setDisable(false);
                         txtServerPort.setDisable(false);
+                        txtMaxPlayers.setDisable(false);
                         showError("Greška pri pokretanju servera:\n" + e.getMessage());
                     });
                 }
-            }).start();
+            });
 
         } catch (NumberFormatException e) {
-            showError("Port mora biti broj!");
+            showError("Port i broj igrača moraju biti brojevi!");
             btnStartServer.setDisable(false);
         }
     }
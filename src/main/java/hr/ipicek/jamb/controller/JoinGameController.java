@@ -5,6 +5,7 @@ import hr.ipicek.jamb.network.NetworkGameManager;
 import hr.ipicek.jamb.network.rmi.GameInfo;
 import hr.ipicek.jamb.util.DialogUtils;
 import hr.ipicek.jamb.util.SceneUtils;
+import hr.ipicek.jamb.util.ThreadUtils;
 import hr.ipicek.jamb.util.ViewPaths;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
@@ -86,8 +87,42 @@ public class JoinGameController {
             }
         });
 
-        // Auto-refresh
-        Platform.runLater(this::handleRefresh);
+        // Lista se osvježava sama (push iz lobbyja), Osvježi ostaje za ručno povlačenje
+        Platform.runLater(this::subscribeToLobby);
+    }
+
+    private void subscribeToLobby() {
+        if (gameManager == null) {
+            showError("Game manager nije postavljen!");
+            return;
+        }
+
+        lblStatus.setText("Učitavanje...");
+        gameManager.setOnGamesListUpdated(this::showGames);
+
+        ThreadUtils.start("Lobby-Subscribe", () -> {
+            try {
+                gameManager.subscribeToLobby();
+            } catch (Exception e) {
+                System.err.println("[JoinGameController] Pretplata na lobby neuspješna: " + e.getMessage());
+                Platform.runLater(this::handleRefresh);
+            }
+        });
+    }
+
+    private void showGames(List<GameInfo> games) {
+        GameInfo selected = selectedGame;
+        tblGames.setItems(FXCollections.observableArrayList(games));
+        lblStatus.setStyle(null);
+        lblStatus.setText(games.isEmpty() ? "Nema dostupnih igara" : "Pronađeno " + games.size() + " igara");
+
+        // Zadrži odabir ako je igra još na listi (GameInfo se zamijeni novim objektom)
+        if (selected != null) {
+            games.stream()
+                    .filter(g -> g.getGameId().equals(selected.getGameId()))
+                    .findFirst()
+                    .ifPresent(g -> tblGames.getSelectionModel().select(g));
+        }
     }
 
     @FXML
@@ -101,18 +136,13 @@ public class JoinGameController {
         btnRefresh.setDisable(true);
 
         // Učitaj igre u background thread-u
-        new Thread(() -> {
+        ThreadUtils.start("Lobby-Refresh", () -> {
             try {
                 List<GameInfo> games = gameManager.getAvailableGames();
 
                 Platform.runLater(() -> {
-                    tblGames.setItems(FXCollections.observableArrayList(games));
-                    lblStatus.setText("Pronađeno " + games.size() + " igara");
+                    showGames(games);
                     btnRefresh.setDisable(false);
-
-                    if (games.isEmpty()) {
-                        lblStatus.setText("Nema dostupnih igara");
-                    }
                 });
 
             } catch (Exception e) {
@@ -123,7 +153,7 @@ public class JoinGameController {
                     showError("Greška pri učitavanju igara:\n" + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     @FXML
@@ -142,9 +172,10 @@ public class JoinGameController {
         lblStatus.setText("Pridruživanje...");
 
         // Join u background thread-u
-        new Thread(() -> {
+        ThreadUtils.start("Join-Game", () -> {
             try {
                 NetworkGameEngine gameEngine = gameManager.joinGame(selectedGame, playerName);
+                gameManager.unsubscribeFromLobby();
 
                 Platform.runLater(() -> {
                     try {
@@ -172,11 +203,14 @@ public class JoinGameController {
                     showError("Greška pri pridruživanju igri:\n" + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     @FXML
     private void handleBack() {
+        if (gameManager != null) {
+            gameManager.unsubscribeFromLobby();
+        }
         try {
             SceneUtils.switchScene(btnJoin, ViewPaths.NETWORK_LOBBY, "Jamb - Network Lobby");
         } catch (IOException e) {
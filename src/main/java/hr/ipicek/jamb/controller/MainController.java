@@ -81,12 +81,12 @@ public class MainController {
         imagePath.addListener((obs, old, newPath) -> updateImage(img, newPath));
         updateImage(img, imagePath.get());
 
-        die.heldProperty().addListener((obs, oldVal, held) ->
-                img.setOpacity(Boolean.TRUE.equals(held) ? 0.6 : 1.0)
-        );
-        img.setOpacity(die.heldProperty().get() ? 0.6 : 1.0);
+        // Held stanje se čita na jednu notifikaciju cijelog stanja kockica
+        engine.getDiceSet().diceStateProperty().addListener((obs, oldVal, newVal) ->
+                img.setOpacity(die.isHeld() ? 0.6 : 1.0));
+        img.setOpacity(die.isHeld() ? 0.6 : 1.0);
 
-        img.setOnMouseClicked(e -> die.heldProperty().set(!die.heldProperty().get()));
+        img.setOnMouseClicked(e -> die.setHeld(!die.isHeld()));
 
         img.setOnMouseEntered(e -> {
             img.setScaleX(1.08);
@@ -125,23 +125,7 @@ public class MainController {
         TableUtils.setupPlayerColumn(colP2, engine, 1);
 
         var sheet = engine.getCurrentPlayer().getSheet();
-        lblTotal.textProperty().bind(Bindings.createStringBinding(
-                () -> String.valueOf(sheet.total()),
-                engine.currentPlayerIndexProperty(),
-                sheet.scoreProperty(ScoreCategory.ONES),
-                sheet.scoreProperty(ScoreCategory.TWOS),
-                sheet.scoreProperty(ScoreCategory.THREES),
-                sheet.scoreProperty(ScoreCategory.FOURS),
-                sheet.scoreProperty(ScoreCategory.FIVES),
-                sheet.scoreProperty(ScoreCategory.SIXES),
-                sheet.scoreProperty(ScoreCategory.THREE_OF_A_KIND),
-                sheet.scoreProperty(ScoreCategory.FOUR_OF_A_KIND),
-                sheet.scoreProperty(ScoreCategory.FULL_HOUSE),
-                sheet.scoreProperty(ScoreCategory.SMALL_STRAIGHT),
-                sheet.scoreProperty(ScoreCategory.LARGE_STRAIGHT),
-                sheet.scoreProperty(ScoreCategory.YAHTZEE),
-                sheet.scoreProperty(ScoreCategory.CHANCE)
-        ));
+        lblTotal.textProperty().bind(sheet.totalProperty().asString());
     }
 
     public static class Row {
@@ -27,6 +27,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 
 import java.io.IOException;
+import java.util.List;
 
 // kontroler za main view igre sa chatom
 public class NetworkGameController {
@@ -161,10 +162,10 @@ public class NetworkGameController {
         imagePath.addListener((obs, old, newPath) -> updateImage(img, newPath));
         updateImage(img, imagePath.get());
 
-        die.heldProperty().addListener((obs, oldVal, held) ->
-                img.setOpacity(Boolean.TRUE.equals(held) ? 0.6 : 1.0)
-        );
-        img.setOpacity(die.heldProperty().get() ? 0.6 : 1.0);
+        // Held stanje se čita na jednu notifikaciju cijelog stanja kockica
+        gameEngine.getDiceSet().diceStateProperty().addListener((obs, oldVal, newVal) ->
+                img.setOpacity(die.isHeld() ? 0.6 : 1.0));
+        img.setOpacity(die.isHeld() ? 0.6 : 1.0);
 
         // Click to hold/unhold
         img.setOnMouseClicked(e -> {
@@ -195,17 +196,31 @@ public class NetworkGameController {
     private void refreshScoreTable() {
         var rows = FXCollections.<Row>observableArrayList();
         var players = gameEngine.getPlayers();
-        var p1 = players.get(0);
-        var p2 = players.size() > 1 ? players.get(1) : p1;
 
         for (var c : ScoreCategory.values()) {
-            rows.add(new Row(c, p1, p2));
+            rows.add(new Row(c, players));
         }
 
         tblScores.setItems(rows);
         colCategory.setCellValueFactory(data -> data.getValue().nameProperty());
-        colPlayer1.setCellValueFactory(data -> data.getValue().score1Property());
-        colPlayer2.setCellValueFactory(data -> data.getValue().score2Property());
+
+        // Prva dva stupca su u FXML-u, za veće stolove dodaj stupac po igraču
+        tblScores.getColumns().retainAll(colCategory, colPlayer1, colPlayer2);
+        for (int i = 0; i < players.size(); i++) {
+            TableColumn<Row, Number> col = switch (i) {
+                case 0 -> colPlayer1;
+                case 1 -> colPlayer2;
+                default -> {
+                    TableColumn<Row, Number> extra = new TableColumn<>();
+                    extra.setPrefWidth(colPlayer2.getPrefWidth());
+                    tblScores.getColumns().add(extra);
+                    yield extra;
+                }
+            };
+            int index = i;
+            col.setText(players.get(i).getName());
+            col.setCellValueFactory(data -> data.getValue().scoreProperty(index));
+        }
 
         // Setup click handlers for applying score
         tblScores.setRowFactory(tv -> {
@@ -226,22 +241,7 @@ public class NetworkGameController {
                 .orElse(gameEngine.getPlayers().get(0)); // fallback
 
         var sheet = localPlayer.getSheet();
-        lblTotal.textProperty().bind(Bindings.createStringBinding(
-                () -> String.valueOf(sheet.total()),
-                sheet.scoreProperty(ScoreCategory.ONES),
-                sheet.scoreProperty(ScoreCategory.TWOS),
-                sheet.scoreProperty(ScoreCategory.THREES),
-                sheet.scoreProperty(ScoreCategory.FOURS),
-                sheet.scoreProperty(ScoreCategory.FIVES),
-                sheet.scoreProperty(ScoreCategory.SIXES),
-                sheet.scoreProperty(ScoreCategory.THREE_OF_A_KIND),
-                sheet.scoreProperty(ScoreCategory.FOUR_OF_A_KIND),
-                sheet.scoreProperty(ScoreCategory.FULL_HOUSE),
-                sheet.scoreProperty(ScoreCategory.SMALL_STRAIGHT),
-                sheet.scoreProperty(ScoreCategory.LARGE_STRAIGHT),
-                sheet.scoreProperty(ScoreCategory.YAHTZEE),
-                sheet.scoreProperty(ScoreCategory.CHANCE)
-        ));
+        lblTotal.textProperty().bind(sheet.totalProperty().asString());
     }
 
     private void handleScoreClick(ScoreCategory category) {
@@ -380,19 +380,18 @@ public class NetworkGameController {
     public static class Row {
         private final ScoreCategory category;
         private final StringProperty name;
-        private final IntegerProperty score1;
-        private final IntegerProperty score2;
+        private final List<IntegerProperty> scores;
 
-        public Row(ScoreCategory c, Player p1, Player p2) {
+        public Row(ScoreCategory c, List<Player> players) {
             this.category = c;
             this.name = new SimpleStringProperty(c.displayName());
-            this.score1 = p1.getSheet().scoreProperty(c);
-            this.score2 = p2.getSheet().scoreProperty(c);
+            this.scores = players.stream()
+                    .map(p -> p.getSheet().scoreProperty(c))
+                    .toList();
         }
 
         public ScoreCategory category() { return category; }
         public StringProperty nameProperty() { return name; }
-        public IntegerProperty score1Property() { return score1; }
-        public IntegerProperty score2Property() { return score2; }
+        public IntegerProperty scoreProperty(int playerIndex) { return scores.get(playerIndex); }
     }
 }
\ No newline at end of file
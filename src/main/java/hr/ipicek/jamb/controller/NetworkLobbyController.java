@@ -5,6 +5,7 @@ import hr.ipicek.jamb.network.NetworkGameManager;
 import hr.ipicek.jamb.network.rmi.RMIRegistryServer;
 import hr.ipicek.jamb.util.DialogUtils;
 import hr.ipicek.jamb.util.SceneUtils;
+import hr.ipicek.jamb.util.ThreadUtils;
 import hr.ipicek.jamb.util.ViewPaths;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -57,7 +58,7 @@ public class NetworkLobbyController {
             btnConnect.setDisable(true);
 
             // Povezivanje u background thread-u
-            new Thread(() -> {
+            ThreadUtils.start("Lobby-Connect", () -> {
                 try {
                     gameManager = new NetworkGameManager(host, port, useJNDI);
                     gameManager.connect();
@@ -82,7 +83,7 @@ public class NetworkLobbyController {
                         showError("Greška pri povezivanju na RMI server:\n" + e.getMessage());
                     });
                 }
-            }).start();
+            });
 
         } catch (NumberFormatException e) {
             showError("Port mora biti broj!");
@@ -0,0 +1,51 @@
+package hr.ipicek.jamb.core;
+
+import java.util.random.RandomGenerator;
+
+
+// Izvor vrijednosti kockica (1-6). Ubacuje se u igru kroz GameEngine/GameCore/DiceSet
+// umjesto jednog dijeljenog Random-a za cijeli JVM.
+@FunctionalInterface
+public interface DiceRoller {
+
+    int roll();
+
+    // Baca sve nedržane kockice odjednom; brze implementacije izvlače sve iz jedne slučajne riječi
+    default void rollUnheld(int[] values, int holdMask) {
+        for (int i = 0; i < values.length; i++) {
+            if ((holdMask & (1 << i)) == 0) {
+                values[i] = roll();
+            }
+        }
+    }
+
+    // Per-game RNG s poznatim seedom - isti seed daje ista bacanja (replay)
+    static SeededDiceRoller seeded(long seed) {
+        return new SeededDiceRoller(seed);
+    }
+
+    // Brzi RNG bez dijeljenog stanja između niti
+    static DiceRoller threadLocal() {
+        return ThreadLocalDiceRoller.INSTANCE;
+    }
+
+    // Kriptografski RNG za rangirane igre
+    static DiceRoller secure() {
+        return new SecureDiceRoller();
+    }
+
+    // Adapter za postojeći generator (npr. SplittableRandom u simulacijama)
+    static DiceRoller of(RandomGenerator rng) {
+        return new DiceRoller() {
+            @Override
+            public int roll() {
+                return 1 + rng.nextInt(DiceState.FACES);
+            }
+
+            @Override
+            public void rollUnheld(int[] values, int holdMask) {
+                DiceState.fillUnheld(values, holdMask, rng);
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package hr.ipicek.jamb.core;
+
+import hr.ipicek.jamb.util.ScoreTable;
+
+import java.util.random.RandomGenerator;
+
+
+// Stanje kockica bez JavaFX-a: vrijednosti u int nizu, held kockice kao bitmaska
+public final class DiceState {
+
+    public static final int DICE_COUNT = 5;
+    public static final int FACES = 6;
+    public static final int ALL_HELD = (1 << DICE_COUNT) - 1;
+
+    private final int[] values = new int[DICE_COUNT];
+    private final DiceRoller roller;
+    private int holdMask;
+
+    public DiceState(DiceRoller roller) {
+        this.roller = roller;
+        for (int i = 0; i < DICE_COUNT; i++) {
+            values[i] = roller.roll();
+        }
+    }
+
+    // Baca sve kockice koje nisu držane jednim pozivom roller-a
+    public void roll() {
+        roller.rollUnheld(values, holdMask);
+    }
+
+    public void rollDie(int index) {
+        if (!isHeld(index)) {
+            values[index] = roller.roll();
+        }
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public void setValue(int index, int value) {
+        values[index] = value;
+    }
+
+    public boolean isHeld(int index) {
+        return (holdMask & (1 << index)) != 0;
+    }
+
+    public void setHeld(int index, boolean held) {
+        if (held) holdMask |= 1 << index;
+        else holdMask &= ~(1 << index);
+    }
+
+    public int getHoldMask() {
+        return holdMask;
+    }
+
+    public void setHoldMask(int holdMask) {
+        this.holdMask = holdMask & ALL_HELD;
+    }
+
+    public void resetHolds() {
+        holdMask = 0;
+    }
+
+    // Ključ trenutnih vrijednosti (isti kao ScoreTable.key) - jedan broj za cijelo stanje kockica
+    public int key() {
+        return ScoreTable.key(values);
+    }
+
+    public DiceRoller getRoller() {
+        return roller;
+    }
+
+    public int[] copyValues(int[] target) {
+        System.arraycopy(values, 0, target, 0, DICE_COUNT);
+        return target;
+    }
+
+    // Puni nedržane kockice iz jedne 64-bitne riječi: 3 bita po kockici, vrijednosti 6 i 7 se odbacuju
+    // (očekivano ~20 bitova za 5 kockica, nova riječ samo ako se potroši svih 21 izvlačenja)
+    static void fillUnheld(int[] values, int holdMask, RandomGenerator rng) {
+        long word = rng.nextLong();
+        int bitsLeft = Long.SIZE;
+        for (int i = 0; i < values.length; i++) {
+            if ((holdMask & (1 << i)) != 0) continue;
+            int draw;
+            do {
+                if (bitsLeft < 3) {
+                    word = rng.nextLong();
+                    bitsLeft = Long.SIZE;
+                }
+                draw = (int) (word & 0b111);
+                word >>>= 3;
+                bitsLeft -= 3;
+            } while (draw >= FACES);
+            values[i] = draw + 1;
+        }
+    }
+
+    // Interni niz - samo za čitanje unutar paketa (bodovanje bez kopiranja)
+    int[] values() {
+        return values;
+    }
+}
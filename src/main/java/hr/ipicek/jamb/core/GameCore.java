@@ -0,0 +1,137 @@
+package hr.ipicek.jamb.core;
+
+import hr.ipicek.jamb.util.ScoreTable;
+
+
+
+// Pravila igre nad kompaktnim stanjem, bez JavaFX-a (server, simulacije).
+// GameEngine je samo observable adapter oko ove klase.
+public final class GameCore {
+
+    public static final int MAX_ROLLS = 3;
+
+    private final DiceState dice;
+    private final ScoreCard[] cards;
+    private int rollCount;
+    private int currentPlayer;
+    private boolean gameOver;
+
+    public GameCore(int playerCount, DiceRoller roller) {
+        this(newCards(playerCount), roller);
+    }
+
+    public GameCore(ScoreCard[] cards, DiceRoller roller) {
+        if (cards.length == 0) {
+            throw new IllegalArgumentException("Igra mora imati barem jednog igrača.");
+        }
+        this.cards = cards;
+        this.dice = new DiceState(roller);
+    }
+
+    private static ScoreCard[] newCards(int playerCount) {
+        ScoreCard[] cards = new ScoreCard[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            cards[i] = new ScoreCard();
+        }
+        return cards;
+    }
+
+    // Početak nove igre - prvi igrač odmah baca
+    public void start() {
+        currentPlayer = 0;
+        gameOver = false;
+        nextTurn();
+    }
+
+    // Briše liste i kreće ispočetka (ponovno korištenje istog objekta u simulacijama)
+    public void reset() {
+        for (ScoreCard card : cards) {
+            card.clear();
+        }
+        start();
+    }
+
+    // @return false ako su bacanja iskorištena
+    public boolean roll() {
+        if (rollCount >= MAX_ROLLS) return false;
+        dice.roll();
+        rollCount++;
+        return true;
+    }
+
+    public int previewScore(int categoryOrdinal) {
+        return ScoreTable.score(ScoreTable.indexOf(dice.values()), categoryOrdinal);
+    }
+
+    // Upisuje bodove trenutnom igraču i prebacuje potez
+    // @return upisani bodovi ili -1 ako je kategorija već popunjena
+    public int applyScore(int categoryOrdinal) {
+        ScoreCard card = cards[currentPlayer];
+        if (gameOver || card.isFilled(categoryOrdinal)) return -1;
+
+        int score = previewScore(categoryOrdinal);
+        card.setScore(categoryOrdinal, score);
+
+        if (isGameFinished()) {
+            gameOver = true;
+            return score;
+        }
+
+        nextPlayer();
+        return score;
+    }
+
+    public void nextPlayer() {
+        currentPlayer = (currentPlayer + 1) % cards.length;
+        nextTurn();
+    }
+
+    private void nextTurn() {
+        rollCount = 0;
+        dice.resetHolds();
+        roll();
+    }
+
+    public boolean isGameFinished() {
+        for (ScoreCard card : cards) {
+            if (card.getFilledMask() != ScoreCard.FULL_MASK) return false;
+        }
+        return true;
+    }
+
+    public DiceState getDice() {
+        return dice;
+    }
+
+    public ScoreCard getCard(int playerIndex) {
+        return cards[playerIndex];
+    }
+
+    public int getPlayerCount() {
+        return cards.length;
+    }
+
+    public int getRollCount() {
+        return rollCount;
+    }
+
+    public void setRollCount(int rollCount) {
+        this.rollCount = rollCount;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(int currentPlayer) {
+        this.currentPlayer = currentPlayer;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+}
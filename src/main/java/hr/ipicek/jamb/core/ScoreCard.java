@@ -0,0 +1,58 @@
+package hr.ipicek.jamb.core;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+
+import java.util.Arrays;
+
+
+// Bodovna lista jednog igrača bez JavaFX-a: int[13] bodova + bitmaska popunjenih kategorija.
+// Zbroj se održava inkrementalno pa su total() i isFull() O(1).
+public final class ScoreCard {
+
+    public static final int CATEGORY_COUNT = ScoreCategory.values().length;
+    public static final int FULL_MASK = (1 << CATEGORY_COUNT) - 1;
+
+    private final int[] scores = new int[CATEGORY_COUNT];
+    private int filledMask;
+    private int total;
+
+    public int getScore(int categoryOrdinal) {
+        return scores[categoryOrdinal];
+    }
+
+    public boolean isFilled(int categoryOrdinal) {
+        return (filledMask & (1 << categoryOrdinal)) != 0;
+    }
+
+    public void setScore(int categoryOrdinal, int value) {
+        total += value - scores[categoryOrdinal];
+        scores[categoryOrdinal] = value;
+        filledMask |= 1 << categoryOrdinal;
+    }
+
+    // Postavlja stanje kategorije (npr. kod učitavanja spremljene igre)
+    public void load(int categoryOrdinal, int value, boolean filled) {
+        total += value - scores[categoryOrdinal];
+        scores[categoryOrdinal] = value;
+        if (filled) filledMask |= 1 << categoryOrdinal;
+        else filledMask &= ~(1 << categoryOrdinal);
+    }
+
+    public void clear() {
+        Arrays.fill(scores, 0);
+        filledMask = 0;
+        total = 0;
+    }
+
+    public int getFilledMask() {
+        return filledMask;
+    }
+
+    public boolean isFull() {
+        return filledMask == FULL_MASK;
+    }
+
+    public int total() {
+        return total;
+    }
+}
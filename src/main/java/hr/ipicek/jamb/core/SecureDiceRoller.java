@@ -0,0 +1,20 @@
+package hr.ipicek.jamb.core;
+
+import java.security.SecureRandom;
+
+
+// Nepredvidiva bacanja za rangirane igre (sporije od ostalih implementacija)
+final class SecureDiceRoller implements DiceRoller {
+
+    private final SecureRandom rng = new SecureRandom();
+
+    @Override
+    public int roll() {
+        return 1 + rng.nextInt(DiceState.FACES);
+    }
+
+    @Override
+    public void rollUnheld(int[] values, int holdMask) {
+        DiceState.fillUnheld(values, holdMask, rng);
+    }
+}
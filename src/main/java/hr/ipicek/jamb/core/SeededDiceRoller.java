@@ -0,0 +1,56 @@
+package hr.ipicek.jamb.core;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+
+// Seedani RNG za jednu igru. Nije thread-safe - koristi ga samo nit koja vodi igru.
+// Sva izvlačenja idu kroz jedan brojač (draws), pa se seed + draws sprema uz igru
+// i seek ga vrati na istu poziciju (učitana igra nastavlja s istim bacanjima).
+public final class SeededDiceRoller implements DiceRoller {
+
+    private final long seed;
+    private SplittableRandom rng;
+    private final RandomGenerator counted = this::nextWord;
+    private long draws;
+
+    SeededDiceRoller(long seed) {
+        this.seed = seed;
+        this.rng = new SplittableRandom(seed);
+    }
+
+    // Vraća RNG na stanje nakon draws izvlačenja od seeda
+    public void seek(long draws) {
+        if (draws < 0) {
+            throw new IllegalArgumentException("Broj izvlačenja ne može biti negativan: " + draws);
+        }
+        rng = new SplittableRandom(seed);
+        this.draws = 0;
+        while (this.draws < draws) {
+            nextWord();
+        }
+    }
+
+    private long nextWord() {
+        draws++;
+        return rng.nextLong();
+    }
+
+    @Override
+    public int roll() {
+        return 1 + counted.nextInt(DiceState.FACES);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    @Override
+    public void rollUnheld(int[] values, int holdMask) {
+        DiceState.fillUnheld(values, holdMask, counted);
+    }
+}
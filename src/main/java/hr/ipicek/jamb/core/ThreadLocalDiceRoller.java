@@ -0,0 +1,22 @@
+package hr.ipicek.jamb.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+// Svaka nit koristi svoj ThreadLocalRandom - nema CAS natjecanja oko zajedničkog seeda
+final class ThreadLocalDiceRoller implements DiceRoller {
+
+    static final ThreadLocalDiceRoller INSTANCE = new ThreadLocalDiceRoller();
+
+    private ThreadLocalDiceRoller() {}
+
+    @Override
+    public int roll() {
+        return 1 + ThreadLocalRandom.current().nextInt(DiceState.FACES);
+    }
+
+    @Override
+    public void rollUnheld(int[] values, int holdMask) {
+        DiceState.fillUnheld(values, holdMask, ThreadLocalRandom.current());
+    }
+}
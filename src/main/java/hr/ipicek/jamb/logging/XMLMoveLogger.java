@@ -12,6 +12,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.time.format.DateTimeFormatter;
+import java.util.OptionalLong;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -23,12 +24,19 @@ public class XMLMoveLogger extends Thread {
     private final BlockingQueue<Move> moveQueue;
     private final File xmlFile;
     private final String gameId;
+    // Seed kockica igre (null ako RNG nije seedan) - upisuje se kao atribut korijena
+    private final Long seed;
     private volatile boolean running;
     private final ReentrantLock fileLock;
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     public XMLMoveLogger(String gameId) {
+        this(gameId, null);
+    }
+
+    public XMLMoveLogger(String gameId, Long seed) {
         this.gameId = gameId;
+        this.seed = seed;
         this.moveQueue = new LinkedBlockingQueue<>();
         this.running = true;
         this.fileLock = new ReentrantLock();  // ← DODANO
@@ -57,6 +65,9 @@ public class XMLMoveLogger extends Thread {
             Document doc = builder.newDocument();
 
             Element root = doc.createElement("GameMoves");
+            if (seed != null) {
+                root.setAttribute("seed", Long.toString(seed));
+            }
             doc.appendChild(root);
 
             writeDocumentWithDTD(doc);
@@ -189,6 +200,19 @@ public class XMLMoveLogger extends Thread {
         }
     }
 
+    // Seed iz spremljenog loga - DiceRoller.seeded(seed) s istim redoslijedom igrača i držanja ponavlja bacanja
+    public static OptionalLong readSeed(File xmlFile) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            Document doc = factory.newDocumentBuilder().parse(xmlFile);
+            String value = doc.getDocumentElement().getAttribute("seed");
+            return value.isEmpty() ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(value));
+        } catch (Exception e) {
+            Logger.error("XMLMoveLogger", "Error reading seed: " + e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
     public File getXmlFile() {
         return xmlFile;
     }
@@ -1,5 +1,9 @@
 package hr.ipicek.jamb.model;
 
+import hr.ipicek.jamb.core.DiceRoller;
+import hr.ipicek.jamb.core.DiceState;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -8,19 +12,55 @@ import java.util.stream.Collectors;
 
 public class DiceSet {
 
-    private final ObservableList<Die> dice =
-            FXCollections.observableArrayList(List.of(
-                    new Die(), new Die(), new Die(), new Die(), new Die()
-            ));
+    private final DiceState state;
+    private final ObservableList<Die> dice = FXCollections.observableArrayList();
+    // Jedina notifikacija za kockice: (ključ vrijednosti << DICE_COUNT) | held maska, vidi ScoreTable.key
+    private final ReadOnlyIntegerWrapper diceState = new ReadOnlyIntegerWrapper(this, "diceState");
+
+    public DiceSet(DiceRoller roller) {
+        this(new DiceState(roller));
+    }
+
+    DiceSet(DiceState state) {
+        this.state = state;
+        for (int i = 0; i < DiceState.DICE_COUNT; i++) {
+            dice.add(new Die(state, i, this::sync));
+        }
+        sync();
+    }
 
     public void roll() {
-        dice.stream()
-                .filter(d -> !d.isHeld())
-                .forEach(Die::roll);
+        state.roll();
+        sync();
     }
 
     public void resetHolds() {
-        dice.forEach(d -> d.setHeld(false));
+        state.resetHolds();
+        sync();
+    }
+
+    // Postavlja vrijednosti i held stanje svih kockica (npr. stanje sa servera) kao jednu promjenu; null se preskače
+    public void apply(List<Integer> values, List<Boolean> held) {
+        if (values != null) {
+            for (int i = 0; i < values.size() && i < DiceState.DICE_COUNT; i++) {
+                state.setValue(i, values.get(i));
+            }
+        }
+        if (held != null) {
+            for (int i = 0; i < held.size() && i < DiceState.DICE_COUNT; i++) {
+                state.setHeld(i, held.get(i));
+            }
+        }
+        sync();
+    }
+
+    // Javlja promjenu core stanja - jednom po bacanju ili potezu, ne po kockici
+    void sync() {
+        diceState.set(state.key() << DiceState.DICE_COUNT | state.getHoldMask());
+    }
+
+    public ReadOnlyIntegerProperty diceStateProperty() {
+        return diceState.getReadOnlyProperty();
     }
 
     public ObservableList<Die> getDice() {
@@ -33,4 +73,12 @@ public class DiceSet {
                 .collect(Collectors.toList());
     }
 
-}
\ No newline at end of file
+    // Kopira vrijednosti u zadani niz (bez boxinga), vraća isti niz
+    public int[] copyValues(int[] target) {
+        return state.copyValues(target);
+    }
+
+    public DiceState getState() {
+        return state;
+    }
+}
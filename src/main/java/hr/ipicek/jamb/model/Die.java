@@ -1,45 +1,42 @@
 package hr.ipicek.jamb.model;
 
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleBooleanProperty;
-import javafx.beans.property.SimpleIntegerProperty;
+import hr.ipicek.jamb.core.DiceState;
 
-import java.util.Random;
 
+// Pogled na jednu kockicu u DiceState - nema vlastitih property-ja, svaka promjena se javlja
+// kroz jedinstveni DiceSet.diceStateProperty
 public class Die {
 
-    private static final Random RNG = new Random();
-    private final IntegerProperty value = new SimpleIntegerProperty(this, "value", 1 + RNG.nextInt(6));
-    private final BooleanProperty held = new SimpleBooleanProperty(this, "held", false);
+    private final DiceState state;
+    private final int index;
+    private final Runnable onChanged;
+
+    Die(DiceState state, int index, Runnable onChanged) {
+        this.state = state;
+        this.index = index;
+        this.onChanged = onChanged;
+    }
 
     public void roll() {
-        if (!isHeld()) {
-            value.set(1 + RNG.nextInt(6));
-        }
+        state.rollDie(index);
+        onChanged.run();
     }
 
     public void setValue(int value) {
-        this.value.set(value);
+        state.setValue(index, value);
+        onChanged.run();
     }
 
     public int getValue() {
-        return value.get();
-    }
-
-    public IntegerProperty valueProperty() {
-        return value;
+        return state.getValue(index);
     }
 
     public boolean isHeld() {
-        return held.get();
+        return state.isHeld(index);
     }
 
     public void setHeld(boolean h) {
-        held.set(h);
-    }
-
-    public BooleanProperty heldProperty() {
-        return held;
+        state.setHeld(index, h);
+        onChanged.run();
     }
-}
\ No newline at end of file
+}
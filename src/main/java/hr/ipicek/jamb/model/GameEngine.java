@@ -1,6 +1,9 @@
 package hr.ipicek.jamb.model;
 
-import hr.ipicek.jamb.util.ScoreCalculator;
+import hr.ipicek.jamb.core.DiceRoller;
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.core.SeededDiceRoller;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,14 +12,18 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+// Observable (JavaFX) adapter oko GameCore - pravila i stanje žive u core-u
 public class GameEngine {
 
-    public static final int MAX_ROLLS = 3;
-    private static final int NUM_PLAYERS = 2;
+    public static final int MAX_ROLLS = GameCore.MAX_ROLLS;
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 8;
 
+    private final GameCore core;
     private final List<Player> players;
-    private final DiceSet diceSet = new DiceSet();
+    private final DiceSet diceSet;
 
     private final IntegerProperty rollCount = new SimpleIntegerProperty(0);
     private final IntegerProperty currentPlayerIndex = new SimpleIntegerProperty(0);
@@ -24,37 +31,70 @@ public class GameEngine {
 
     private final ObservableList<StringProperty> diceImagePaths = FXCollections.observableArrayList();
 
+    // Lokalna igra baca sa seedanim RNG-om - seed se sprema uz igru (vidi toSerializableState)
     public GameEngine(List<String> playerNames) {
-        if (playerNames == null || playerNames.size() != NUM_PLAYERS)
-            throw new IllegalArgumentException("Igra mora imati točno 2 igrača.");
+        this(playerNames, DiceRoller.seeded(ThreadLocalRandom.current().nextLong()));
+    }
+
+    public GameEngine(List<String> playerNames, DiceRoller diceRoller) {
+        if (playerNames == null || playerNames.size() < MIN_PLAYERS || playerNames.size() > MAX_PLAYERS)
+            throw new IllegalArgumentException("Igra mora imati od " + MIN_PLAYERS + " do " + MAX_PLAYERS + " igrača.");
 
+        this.core = new GameCore(playerNames.size(), diceRoller);
         this.players = new ArrayList<>();
-        playerNames.forEach(name -> players.add(new Player(name)));
+        for (int i = 0; i < playerNames.size(); i++) {
+            players.add(new Player(playerNames.get(i), core.getCard(i)));
+        }
+        this.diceSet = new DiceSet(core.getDice());
 
+        initCoreBindings();
         initDiceImageBindings();
-        nextTurn();
+        core.start();
+        syncFromCore();
     }
 
-    private GameEngine(List<Player> restoredPlayers, List<Integer> diceValues, int rollCount, int currentPlayer) {
+    private GameEngine(List<Player> restoredPlayers, List<Integer> diceValues, int rollCount, int currentPlayer,
+                       DiceRoller diceRoller) {
         this.players = restoredPlayers;
+        this.core = new GameCore(restoredPlayers.stream()
+                .map(p -> p.getSheet().getCard())
+                .toArray(ScoreCard[]::new), diceRoller);
+        this.diceSet = new DiceSet(core.getDice());
+
+        initCoreBindings();
         initDiceImageBindings();
 
-        for (int i = 0; i < diceSet.getDice().size(); i++) {
-            diceSet.getDice().get(i).setValue(diceValues.get(i));
-        }
+        diceSet.apply(diceValues, null);
 
         this.rollCount.set(rollCount);
         this.currentPlayerIndex.set(currentPlayer);
     }
 
+    // Property-ji koje netko postavi izvana (npr. mrežni klijent) upisuju se natrag u core
+    private void initCoreBindings() {
+        rollCount.addListener((obs, oldVal, newVal) -> core.setRollCount(newVal.intValue()));
+        currentPlayerIndex.addListener((obs, oldVal, newVal) -> core.setCurrentPlayer(newVal.intValue()));
+        gameOver.addListener((obs, oldVal, newVal) -> core.setGameOver(newVal));
+    }
+
+    // Osvježava property-je nakon promjene core stanja
+    private void syncFromCore() {
+        diceSet.sync();
+        currentPlayerIndex.set(core.getCurrentPlayer());
+        rollCount.set(core.getRollCount());
+        gameOver.set(core.isGameOver());
+    }
+
+    // Slike se osvježavaju na jednu notifikaciju cijelog stanja kockica, ne po kockici
     private void initDiceImageBindings() {
         for (Die die : diceSet.getDice()) {
-            StringProperty imagePath = new SimpleStringProperty(getDiceImagePath(die.getValue()));
-            die.valueProperty().addListener((obs, oldVal, newVal) ->
-                    imagePath.set(getDiceImagePath(newVal.intValue()))
-            );
-            diceImagePaths.add(imagePath);
+            diceImagePaths.add(new SimpleStringProperty(getDiceImagePath(die.getValue())));
         }
+        diceSet.diceStateProperty().addListener((obs, oldState, newState) -> {
+            for (int i = 0; i < diceImagePaths.size(); i++) {
+                diceImagePaths.get(i).set(getDiceImagePath(diceSet.getState().getValue(i)));
+            }
+        });
     }
 
     private String getDiceImagePath(int value) {
@@ -66,56 +106,37 @@ public class GameEngine {
     }
 
     public void roll() {
-        if (rollCount.get() >= MAX_ROLLS) return;
-        diceSet.roll();
-        rollCount.set(rollCount.get() + 1);
-    }
-
-
-    private boolean isGameFinished() {
-        for (Player p : players) {
-            if (!p.getSheet().isFull()) return false;
+        if (core.roll()) {
+            syncFromCore();
         }
-        return true;
     }
 
     public int previewScore(ScoreCategory category) {
-        return ScoreCalculator.calculate(category, diceSet);
+        return core.previewScore(category.ordinal());
     }
 
     public void applyScore(ScoreCategory category) {
-        Player current = getCurrentPlayer();
-        ScoreSheet sheet = current.getSheet();
-
-        if (sheet.filledProperty(category).get()) return;
+        ScoreSheet sheet = getCurrentPlayer().getSheet();
 
-        int score = previewScore(category);
-        sheet.setScore(category, score);
+        if (core.applyScore(category.ordinal()) < 0) return;
 
-        if (isGameFinished()) {
-            gameOver.set(true);
-            return;
-        }
-
-        nextPlayer();
+        sheet.sync(category);
+        syncFromCore();
     }
 
     public void nextPlayer() {
-        int next = (currentPlayerIndex.get() + 1) % NUM_PLAYERS;
-        currentPlayerIndex.set(next);
-        nextTurn();
-    }
-
-    private void nextTurn() {
-        rollCount.set(0);
-        diceSet.resetHolds();
-        roll();
+        core.nextPlayer();
+        syncFromCore();
     }
 
     public List<Player> getPlayers() {
         return players;
     }
 
+    public int getPlayerCount() {
+        return players.size();
+    }
+
     public Player getCurrentPlayer() {
         return players.get(currentPlayerIndex.get());
     }
@@ -140,6 +161,14 @@ public class GameEngine {
         return gameOver;
     }
 
+    public DiceRoller getDiceRoller() {
+        return core.getDice().getRoller();
+    }
+
+    public GameCore getCore() {
+        return core;
+    }
+
     public GameEngineState toSerializableState() {
         List<Player.PlayerState> playerStates = new ArrayList<>();
         for (Player p : players)
@@ -147,11 +176,21 @@ public class GameEngine {
 
         List<Integer> diceValues = diceSet.getDiceValues();
 
+        // Seed i pozicija RNG-a - učitana igra nastavlja s istim bacanjima
+        Long diceSeed = null;
+        long diceDraws = 0;
+        if (getDiceRoller() instanceof SeededDiceRoller seeded) {
+            diceSeed = seeded.getSeed();
+            diceDraws = seeded.getDraws();
+        }
+
         return new GameEngineState(
                 playerStates,
                 diceValues,
                 rollCount.get(),
-                currentPlayerIndex.get()
+                currentPlayerIndex.get(),
+                diceSeed,
+                diceDraws
         );
     }
 
@@ -160,15 +199,25 @@ public class GameEngine {
         for (Player.PlayerState ps : state.playerStates)
             restoredPlayers.add(Player.fromSerializableState(ps));
 
-        return new GameEngine(
+        // Stare snimke nemaju seed
+        SeededDiceRoller roller = state.diceSeed != null ? DiceRoller.seeded(state.diceSeed) : null;
+        GameEngine engine = new GameEngine(
                 restoredPlayers,
                 state.diceValues,
                 state.rollCount,
-                state.currentPlayerIndex
+                state.currentPlayerIndex,
+                roller != null ? roller : DiceRoller.threadLocal()
         );
+        // Početne kockice novog DiceState-a su potrošile izvlačenja - vrati RNG na spremljenu poziciju
+        if (roller != null) {
+            roller.seek(state.diceDraws);
+        }
+        return engine;
     }
 
-    public record GameEngineState(List<Player.PlayerState> playerStates, List<Integer> diceValues, int rollCount, int currentPlayerIndex) implements Serializable {
+    // diceSeed je null za igru bez seedanog RNG-a
+    public record GameEngineState(List<Player.PlayerState> playerStates, List<Integer> diceValues, int rollCount,
+                                  int currentPlayerIndex, Long diceSeed, long diceDraws) implements Serializable {
             @Serial
             private static final long serialVersionUID = 1L;
     }
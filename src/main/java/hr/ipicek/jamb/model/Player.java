@@ -1,5 +1,6 @@
 package hr.ipicek.jamb.model;
 
+import hr.ipicek.jamb.core.ScoreCard;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
@@ -12,8 +13,12 @@ public class Player {
     private final ScoreSheet sheet;
 
     public Player(String name) {
+        this(name, new ScoreCard());
+    }
+
+    Player(String name, ScoreCard card) {
         this.name = new SimpleStringProperty(name);
-        this.sheet = new ScoreSheet();
+        this.sheet = new ScoreSheet(card);
     }
 
     public String getName() {
@@ -1,7 +1,10 @@
 package hr.ipicek.jamb.model;
 
+import hr.ipicek.jamb.core.ScoreCard;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 
@@ -10,16 +13,25 @@ import java.io.Serializable;
 import java.util.EnumMap;
 import java.util.Map;
 
+// Observable adapter oko ScoreCard - core je izvor istine, property-ji ga prate
 public class ScoreSheet {
 
+    private final ScoreCard card;
     private final EnumMap<ScoreCategory, IntegerProperty> scores = new EnumMap<>(ScoreCategory.class);
     private final EnumMap<ScoreCategory, BooleanProperty> filled = new EnumMap<>(ScoreCategory.class);
+    private final ReadOnlyIntegerWrapper total = new ReadOnlyIntegerWrapper(this, "total");
 
     public ScoreSheet() {
+        this(new ScoreCard());
+    }
+
+    ScoreSheet(ScoreCard card) {
+        this.card = card;
         for (ScoreCategory c : ScoreCategory.values()) {
-            scores.put(c, new SimpleIntegerProperty(0));
-            filled.put(c, new SimpleBooleanProperty(false));
+            scores.put(c, new SimpleIntegerProperty(card.getScore(c.ordinal())));
+            filled.put(c, new SimpleBooleanProperty(card.isFilled(c.ordinal())));
         }
+        total.set(card.total());
     }
 
     public IntegerProperty scoreProperty(ScoreCategory category) {
@@ -31,29 +43,45 @@ public class ScoreSheet {
     }
 
     public int getScore(ScoreCategory category) {
-        return scores.get(category).get();
+        return card.getScore(category.ordinal());
     }
 
     public boolean isFilled(ScoreCategory category) {
-        return filled.get(category).get();
+        return card.isFilled(category.ordinal());
     }
 
     public void setScore(ScoreCategory category, int value) {
-        scores.get(category).set(value);
-        filled.get(category).set(true);
+        card.setScore(category.ordinal(), value);
+        sync(category);
+    }
+
+    // Osvježava property-je kategorije iz core stanja
+    void sync(ScoreCategory category) {
+        scores.get(category).set(card.getScore(category.ordinal()));
+        filled.get(category).set(card.isFilled(category.ordinal()));
+        total.set(card.total());
     }
 
     public boolean isFull() {
-        for (ScoreCategory c : ScoreCategory.values()) {
-            if (!filledProperty(c).get()) return false;
-        }
-        return true;
+        return card.isFull();
     }
 
     public int total() {
-        return scores.values().stream()
-                .mapToInt(IntegerProperty::get)
-                .sum();
+        return card.total();
+    }
+
+    // Read-only zbroj za binding - mijenja se samo kad se upiše kategorija
+    public ReadOnlyIntegerProperty totalProperty() {
+        return total.getReadOnlyProperty();
+    }
+
+    // Bit i = kategorija s ordinalom i je popunjena
+    public int filledMask() {
+        return card.getFilledMask();
+    }
+
+    public ScoreCard getCard() {
+        return card;
     }
 
     @Override
@@ -80,8 +108,8 @@ public class ScoreSheet {
         for (var c : ScoreCategory.values()) {
             var catState = saved.categories.get(c);
             if (catState != null) {
-                scores.get(c).set(catState.score);
-                filled.get(c).set(catState.filled);
+                card.load(c.ordinal(), catState.score, catState.filled);
+                sync(c);
             }
         }
     }
@@ -1,16 +1,20 @@
 package hr.ipicek.jamb.network;
 
+import hr.ipicek.jamb.core.DiceRoller;
+import hr.ipicek.jamb.core.SeededDiceRoller;
 import hr.ipicek.jamb.logging.MoveDisplay;
 import hr.ipicek.jamb.logging.MoveLogger;
 import hr.ipicek.jamb.logging.XMLMoveLogger;
 import hr.ipicek.jamb.model.*;
 import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.GameStateSequencer;
 import hr.ipicek.jamb.network.protocol.GameStateUpdate;
 import hr.ipicek.jamb.network.protocol.MessageType;
 import hr.ipicek.jamb.network.protocol.PlayerMove;
 import hr.ipicek.jamb.network.socket.GameClient;
 import hr.ipicek.jamb.network.socket.GameServer;
 import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
 import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
@@ -18,6 +22,7 @@ import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -28,6 +33,7 @@ public class NetworkGameEngine {
     private GameEngine gameEngine;
     private final boolean isHost;
     private final String localPlayerName;
+    private final int maxPlayers;
 
     // Network komponente
     private GameServer server;
@@ -63,25 +69,42 @@ public class NetworkGameEngine {
     private final BooleanProperty isLocalPlayerTurn = new SimpleBooleanProperty(false);
     private final List<String> playerNames = new ArrayList<>();
 
+    // Delta updatei: host numerira verzije, svi prate zadnju primijenjenu (sve na FX threadu)
+    private GameStateSequencer sequencer;
+    private long lastSequence;
+    private boolean syncRequested;
+
     // host
     public NetworkGameEngine(String localPlayerName, int port) {
+        this(localPlayerName, port, NetworkConstants.DEFAULT_PLAYERS);
+    }
+
+    // host sa zadanom veličinom stola (uključuje i hosta)
+    public NetworkGameEngine(String localPlayerName, int port, int maxPlayers) {
         this.isHost = true;
         this.localPlayerName = localPlayerName;
+        this.maxPlayers = maxPlayers;
         this.playerNames.add(localPlayerName);
         initializeAsHost(port);
     }
 
-    // client
+    // client - veličinu stola određuje host, klijent prima redoslijed u GAME_START
     public NetworkGameEngine(String localPlayerName, String serverHost, int serverPort) {
+        this(localPlayerName, serverHost, serverPort, null);
+    }
+
+    // client za stol na dedicated serveru (TableServer), gameId određuje stol
+    public NetworkGameEngine(String localPlayerName, String serverHost, int serverPort, String tableId) {
         this.isHost = false;
         this.localPlayerName = localPlayerName;
+        this.maxPlayers = NetworkConstants.MAX_PLAYERS;
         this.playerNames.add(localPlayerName);
-        initializeAsClient(localPlayerName, serverHost, serverPort);
+        initializeAsClient(localPlayerName, serverHost, serverPort, tableId);
     }
 
 
     private void initializeAsHost(int port) {
-        server = new GameServer(port);
+        server = new GameServer(port, maxPlayers);
 
         server.setStatusCallback(status -> {
             Platform.runLater(() -> statusMessage.set(status));
@@ -96,8 +119,8 @@ public class NetworkGameEngine {
         updateStatus("Server pokrenut. Čekanje igrača...");
     }
 
-    private void initializeAsClient(String playerName, String host, int port) {
-        client = new GameClient(playerName, host, port);
+    private void initializeAsClient(String playerName, String host, int port, String tableId) {
+        client = new GameClient(playerName, host, port, tableId);
 
         client.setStatusCallback(status -> {
             Platform.runLater(() -> statusMessage.set(status));
@@ -128,7 +151,8 @@ public class NetworkGameEngine {
             switch (message.getType()) {
                 case PLAYER_JOINED -> handlePlayerJoined(message);
                 case GAME_START -> handleGameStart(message);
-                case GAME_STATE_UPDATE -> handleGameStateUpdate(message);
+                case GAME_STATE_UPDATE, SYNC_RESPONSE -> handleGameStateUpdate(message);
+                case SYNC_REQUEST -> handleSyncRequest(message);
                 case ROLL_REQUEST -> handleRollRequest(message);
                 case DICE_ROLLED -> handleDiceRolled(message);
                 case DICE_HOLD_TOGGLE -> handleDiceHoldToggle(message);
@@ -160,8 +184,8 @@ public class NetworkGameEngine {
                 broadcastMessage(GameMessage.playerJoined(localPlayerName));
             }
 
-            // Ako je host i ima 2 igrača, pokreni igru
-            if (isHost && playerNames.size() == 2) {
+            // Ako je host i stol je pun, pokreni igru
+            if (isHost && playerNames.size() == maxPlayers) {
                 startGame();
             }
         }
@@ -172,19 +196,25 @@ public class NetworkGameEngine {
             Logger.Game.debug("handleGameStart pozvan. playerNames: " + playerNames + ", size: " + playerNames.size());
 
             gameStarted.set(true);
+            lastSequence = 0;
+            syncRequested = false;
+            if (isHost) {
+                sequencer = new GameStateSequencer();
+            }
 
             // Dohvati redoslijed igrača iz poruke (server odlučuje redoslijed)
             @SuppressWarnings("unchecked")
             List<String> orderedPlayerNames = message.getPayloadAs(List.class);
 
-            if (orderedPlayerNames != null && orderedPlayerNames.size() == 2) {
+            if (orderedPlayerNames != null && orderedPlayerNames.size() >= GameEngine.MIN_PLAYERS
+                    && orderedPlayerNames.size() <= GameEngine.MAX_PLAYERS) {
                 // Koristi redoslijed koji je server poslao
                 Logger.Game.debug("Koristim server redoslijed: " + orderedPlayerNames);
-                gameEngine = new GameEngine(new ArrayList<>(orderedPlayerNames));
+                gameEngine = new GameEngine(new ArrayList<>(orderedPlayerNames), createDiceRoller());
             } else {
                 // Fallback na lokalnu listu
                 Logger.Game.debug("Fallback na lokalnu listu: " + playerNames);
-                gameEngine = new GameEngine(new ArrayList<>(playerNames));
+                gameEngine = new GameEngine(new ArrayList<>(playerNames), createDiceRoller());
             }
 
             // Inicijaliziraj move logging (samo za HOST)
@@ -206,6 +236,17 @@ public class NetworkGameEngine {
         }
     }
 
+    // Host baca kockice sa seedanim RNG-om i sprema seed u XML log (replay može ponovno izvesti bacanja),
+    // klijenti samo prate stanje sa servera
+    private DiceRoller createDiceRoller() {
+        if (!isHost) {
+            return DiceRoller.threadLocal();
+        }
+        SeededDiceRoller roller = DiceRoller.seeded(ThreadLocalRandom.current().nextLong());
+        Logger.Game.info("Seed kockica za ovu igru: " + roller.getSeed());
+        return roller;
+    }
+
     private void handleGameStateUpdate(GameMessage message) {
         GameStateUpdate state = message.getPayloadAs(GameStateUpdate.class);
         if (state == null) {
@@ -215,28 +256,38 @@ public class NetworkGameEngine {
 
         Logger.Game.debug("handleGameStateUpdate: " + state);
 
-        // Update client-side observables
-        clientDiceValues.setAll(state.diceValues());
-        clientDiceHeld.setAll(state.diceHeld());
+        if (state.snapshot()) {
+            // Snapshot starije verzije od već primijenjene ne smije vratiti stanje unatrag
+            if (state.sequence() < lastSequence) return;
+            syncRequested = false;
+        } else if (state.sequence() != lastSequence + 1) {
+            // Rupa u sekvenci - delta se ne može primijeniti, traži puno stanje (jednom dok ne stigne)
+            Logger.Game.warn("Rupa u sekvenci: očekivano " + (lastSequence + 1) + ", primljeno " + state.sequence());
+            if (!syncRequested) {
+                syncRequested = true;
+                sendMessage(new GameMessage(MessageType.SYNC_REQUEST, localPlayerName, null));
+            }
+            return;
+        }
+        lastSequence = state.sequence();
+
+        // Update client-side observables - null u delti znači da se nije promijenilo
+        if (state.diceValues() != null) clientDiceValues.setAll(state.diceValues());
+        if (state.diceHeld() != null) clientDiceHeld.setAll(state.diceHeld());
         clientRollCount.set(state.rollCount());
         clientCurrentPlayerIndex.set(state.currentPlayerIndex());
-        clientCurrentPlayerName.set(state.currentPlayerName());
+        if (state.currentPlayerName() != null) clientCurrentPlayerName.set(state.currentPlayerName());
 
-        // Update total scores
-        clientTotalScores.clear();
+        // Update total scores - delta nosi samo promijenjene igrače, snapshot sve
         clientTotalScores.putAll(state.totalScores());
 
         // Update isLocalPlayerTurn based on current player
-        isLocalPlayerTurn.set(state.currentPlayerName().equals(localPlayerName));
+        isLocalPlayerTurn.set(clientCurrentPlayerName.get().equals(localPlayerName));
 
         // Update GameEngine if we have one (CRITICAL for GUI binding)
         if (gameEngine != null) {
-            // Update dice
-            var dice = gameEngine.getDiceSet().getDice();
-            for (int i = 0; i < state.diceValues().size() && i < dice.size(); i++) {
-                dice.get(i).setValue(state.diceValues().get(i));
-                dice.get(i).heldProperty().set(state.diceHeld().get(i));
-            }
+            // Update dice - jedna notifikacija za sve kockice
+            gameEngine.getDiceSet().apply(state.diceValues(), state.diceHeld());
 
             // Update roll count
             gameEngine.rollCountProperty().set(state.rollCount());
@@ -265,10 +316,19 @@ public class NetworkGameEngine {
             updateStatus("Igra završena! Pobjednik: " + state.winnerName());
             onGameOverCallback.run();
         } else {
-            updateStatus(isLocalPlayerTurn.get() ? "Vaš potez!" : "Potez igrača: " + state.currentPlayerName());
+            updateStatus(isLocalPlayerTurn.get() ? "Vaš potez!" : "Potez igrača: " + clientCurrentPlayerName.get());
         }
     }
 
+    // Host odgovara samo klijentu koji je tražio puno stanje
+    private void handleSyncRequest(GameMessage message) {
+        if (!isHost || gameEngine == null || sequencer == null) return;
+
+        Logger.Game.debug("SYNC_REQUEST od " + message.getSenderName() + ", šaljem snapshot verzije " + sequencer.getSequence());
+        server.sendSnapshotTo(message.getSenderName(), sequencer.getSequence(),
+                () -> new GameMessage(MessageType.SYNC_RESPONSE, "SYSTEM", createSnapshot()));
+    }
+
     private void handleRollRequest(GameMessage message) {
         Logger.Game.debug("handleRollRequest pozvan. isHost: " + isHost + ", gameEngine: " + (gameEngine != null));
 
@@ -282,12 +342,12 @@ public class NetworkGameEngine {
 
             // LOG MOVE - Bacio kockice
             String diceValues = gameEngine.getDiceSet().getDice().stream()
-                    .map(die -> String.valueOf(die.valueProperty().get()))
+                    .map(die -> String.valueOf(die.getValue()))
                     .collect(Collectors.joining(", "));
             logMove(new Move(gameEngine.getCurrentPlayer().getName(), diceValues));
 
             // Kreiraj i broadcast game state update
-            GameStateUpdate stateUpdate = createGameStateUpdate();
+            GameStateUpdate stateUpdate = createGameStateUpdate(null, null);
             if (stateUpdate != null) {
                 Logger.Game.debug("Broadcast-am GAME_STATE_UPDATE");
                 broadcastAndHandleLocally(GameMessage.gameStateUpdate(stateUpdate));
@@ -304,10 +364,7 @@ public class NetworkGameEngine {
             int[] diceValues = (int[]) message.getPayload();
             if (diceValues != null) {
                 // Svi igrači updataju svoje kockice na iste vrijednosti
-                var dice = gameEngine.getDiceSet().getDice();
-                for (int i = 0; i < diceValues.length && i < dice.size(); i++) {
-                    dice.get(i).setValue(diceValues[i]);
-                }
+                gameEngine.getDiceSet().apply(Arrays.stream(diceValues).boxed().toList(), null);
             }
         }
     }
@@ -323,12 +380,12 @@ public class NetworkGameEngine {
 
                 var dice = gameEngine.getDiceSet().getDice();
                 if (data.dieIndex() >= 0 && data.dieIndex() < dice.size()) {
-                    dice.get(data.dieIndex()).heldProperty().set(data.held());
+                    dice.get(data.dieIndex()).setHeld(data.held());
 
                     Logger.Game.debug("Postavio held. Sad broadcast-am GAME_STATE_UPDATE");
 
                     // Broadcast game state update
-                    GameStateUpdate stateUpdate = createGameStateUpdate();
+                    GameStateUpdate stateUpdate = createGameStateUpdate(null, null);
                     if (stateUpdate != null) {
                         broadcastAndHandleLocally(GameMessage.gameStateUpdate(stateUpdate));
                         Logger.Game.debug("GAME_STATE_UPDATE poslan!");
@@ -352,7 +409,8 @@ public class NetworkGameEngine {
             if (move != null) {
                 // Prvo dohvati score prije nego što apply-aš (jer apply mijenja state)
                 int score = gameEngine.previewScore(move.category());
-                String playerName = gameEngine.getCurrentPlayer().getName();
+                Player scoringPlayer = gameEngine.getCurrentPlayer();
+                String playerName = scoringPlayer.getName();
 
                 // Server primjenjuje score
                 gameEngine.applyScore(move.category());
@@ -360,8 +418,8 @@ public class NetworkGameEngine {
                 // LOG MOVE - Upisao rezultat
                 logMove(new Move(playerName, move.category(), score));
 
-                // Broadcast game state update (uključuje score, turn change, sve!)
-                GameStateUpdate stateUpdate = createGameStateUpdate();
+                // Broadcast game state update (upisani score, novi total i turn change)
+                GameStateUpdate stateUpdate = createGameStateUpdate(scoringPlayer, move.category());
                 if (stateUpdate != null) {
                     broadcastAndHandleLocally(GameMessage.gameStateUpdate(stateUpdate));
                 }
@@ -435,8 +493,8 @@ public class NetworkGameEngine {
             return;
         }
 
-        if (playerNames.size() < 2) {
-            updateStatus("Potrebno je minimalno 2 igrača!");
+        if (playerNames.size() < NetworkConstants.MIN_PLAYERS) {
+            updateStatus("Potrebno je minimalno " + NetworkConstants.MIN_PLAYERS + " igrača!");
             Logger.Game.debug("Ne mogu pokrenuti igru - ima samo " + playerNames.size() + " igrača: " + playerNames);
             return;
         }
@@ -449,10 +507,13 @@ public class NetworkGameEngine {
                 "SYSTEM",
                 new ArrayList<>(playerNames) // Pošalji listu imena
         );
-        broadcastMessage(gameStartMsg);
+        server.startGame(gameStartMsg);
 
         // Inicijaliziraj lokalnu igru
         handleGameStart(gameStartMsg);
+
+        // Početni snapshot - od njega klijenti broje sekvencu delta updatea
+        broadcastMessage(GameMessage.gameStateUpdate(createSnapshot()));
     }
 
     // lokalni player baca kockice
@@ -499,16 +560,16 @@ public class NetworkGameEngine {
         if (dieIndex < 0 || dieIndex >= dice.size()) return;
 
         Die die = dice.get(dieIndex);
-        boolean newHeldState = !die.heldProperty().get();
+        boolean newHeldState = !die.isHeld();
 
         Logger.Game.debug("toggleDiceHold - dieIndex: " + dieIndex + ", newState: " + newHeldState + ", isHost: " + isHost);
 
         // Lokalno primijeni
-        die.heldProperty().set(newHeldState);
+        die.setHeld(newHeldState);
 
         if (isHost) {
             // Host broadcast-a game state update
-            GameStateUpdate stateUpdate = createGameStateUpdate();
+            GameStateUpdate stateUpdate = createGameStateUpdate(null, null);
             if (stateUpdate != null) {
                 Logger.Game.debug("Host broadcast-a GAME_STATE_UPDATE zbog held toggle");
                 broadcastAndHandleLocally(GameMessage.gameStateUpdate(stateUpdate));
@@ -613,7 +674,8 @@ public class NetworkGameEngine {
 
 //        moveLogger = new MoveLogger(gameId);
 //        moveLogger.start();
-        xmlMoveLogger = new XMLMoveLogger(gameId);
+        Long seed = gameEngine.getDiceRoller() instanceof SeededDiceRoller roller ? roller.getSeed() : null;
+        xmlMoveLogger = new XMLMoveLogger(gameId, seed);
         xmlMoveLogger.start();
 
         moveDisplay = new MoveDisplay(
@@ -667,6 +729,10 @@ public class NetworkGameEngine {
         return isHost;
     }
 
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
     public String getLocalPlayerName() {
         return localPlayerName;
     }
@@ -716,60 +782,80 @@ public class NetworkGameEngine {
     }
 
 
-    private GameStateUpdate createGameStateUpdate() {
-        if (!isHost || gameEngine == null) {
+    // Delta u odnosu na zadnju verziju: kockice, held i igrač na potezu samo ako su se promijenili (GameStateSequencer),
+    // a score i total samo za igrača koji je upravo upisao (scoredPlayer == null za bacanje/hold)
+    private GameStateUpdate createGameStateUpdate(Player scoredPlayer, ScoreCategory scoredCategory) {
+        if (!isHost || gameEngine == null || sequencer == null) {
             return null;
         }
 
-        // Extract dice values and held states
-        List<Integer> diceValues = gameEngine.getDiceSet().getDiceValues();
-        List<Boolean> diceHeld = gameEngine.getDiceSet().getDice().stream()
-                .map(die -> die.heldProperty().get())
-                .collect(Collectors.toList());
+        Map<String, Map<ScoreCategory, Integer>> scoreSheets = Map.of();
+        Map<String, Integer> totalScores = Map.of();
+        if (scoredPlayer != null) {
+            ScoreSheet sheet = scoredPlayer.getSheet();
+            scoreSheets = Map.of(scoredPlayer.getName(),
+                    Map.of(scoredCategory, sheet.scoreProperty(scoredCategory).get()));
+            totalScores = Map.of(scoredPlayer.getName(), sheet.total());
+        }
 
-        // Extract score sheets
+        return sequencer.delta(
+                gameEngine.getDiceSet().getDiceValues(),
+                currentDiceHeld(),
+                gameEngine.rollCountProperty().get(),
+                gameEngine.currentPlayerIndexProperty().get(),
+                gameEngine.getCurrentPlayer().getName(),
+                scoreSheets,
+                totalScores,
+                gameEngine.gameOverProperty().get(),
+                currentWinnerName()
+        );
+    }
+
+    // Puno stanje (svi upisani scoreovi) za početak igre i SYNC_RESPONSE
+    private GameStateUpdate createSnapshot() {
         Map<String, Map<ScoreCategory, Integer>> scoreSheets = new HashMap<>();
+        Map<String, Integer> totalScores = new HashMap<>();
         for (Player player : gameEngine.getPlayers()) {
-            Map<ScoreCategory, Integer> playerScores = new HashMap<>();
             ScoreSheet sheet = player.getSheet();
+            Map<ScoreCategory, Integer> scores = new EnumMap<>(ScoreCategory.class);
             for (ScoreCategory category : ScoreCategory.values()) {
                 if (sheet.filledProperty(category).get()) {
-                    playerScores.put(category, sheet.scoreProperty(category).get());
+                    scores.put(category, sheet.scoreProperty(category).get());
                 }
             }
-            scoreSheets.put(player.getName(), playerScores);
-        }
-
-        // Extract total scores
-        Map<String, Integer> totalScores = new HashMap<>();
-        for (Player player : gameEngine.getPlayers()) {
-            totalScores.put(player.getName(), player.getSheet().total());
-        }
-
-        // Winner name (if game over)
-        String winnerName = null;
-        if (gameEngine.gameOverProperty().get()) {
-            Player winner = gameEngine.getPlayers().stream()
-                    .max(Comparator.comparingInt(p -> p.getSheet().total()))
-                    .orElse(null);
-            if (winner != null) {
-                winnerName = winner.getName();
-            }
+            scoreSheets.put(player.getName(), scores);
+            totalScores.put(player.getName(), sheet.total());
         }
 
-        return new GameStateUpdate(
-                diceValues,
-                diceHeld,
+        return sequencer.snapshot(
+                gameEngine.getDiceSet().getDiceValues(),
+                currentDiceHeld(),
                 gameEngine.rollCountProperty().get(),
                 gameEngine.currentPlayerIndexProperty().get(),
                 gameEngine.getCurrentPlayer().getName(),
                 scoreSheets,
                 totalScores,
                 gameEngine.gameOverProperty().get(),
-                winnerName
+                currentWinnerName()
         );
     }
 
+    private List<Boolean> currentDiceHeld() {
+        return gameEngine.getDiceSet().getDice().stream()
+                .map(Die::isHeld)
+                .collect(Collectors.toList());
+    }
+
+    private String currentWinnerName() {
+        if (!gameEngine.gameOverProperty().get()) {
+            return null;
+        }
+        return gameEngine.getPlayers().stream()
+                .max(Comparator.comparingInt(p -> p.getSheet().total()))
+                .map(Player::getName)
+                .orElse(null);
+    }
+
 
     // Getteri za client-side observables
     public ObservableList<Integer> getClientDiceValues() {
@@ -8,7 +8,9 @@ import java.net.InetAddress;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -24,6 +26,16 @@ public class NetworkGameManager {
     private NetworkGameEngine gameEngine;
     private String gameId;
     private ChatListenerImpl chatListener;
+    // Redni broj zadnje chat poruke proslijeđene UI-ju (chatLock), -1 dok ne stigne prva
+    private final Object chatLock = new Object();
+    private long chatSequence = -1;
+
+    // Lokalna kopija lobbyja, održava se događajima iz LobbyListenera (lobbyLock)
+    private final Object lobbyLock = new Object();
+    private final Map<String, GameInfo> lobbyGames = new HashMap<>();
+    private long lobbyVersion = -1;
+    private LobbyListenerImpl lobbyListener;
+    private String lobbyClientId;
 
     private Consumer<List<GameInfo>> onGamesListUpdated;
     private Consumer<ChatMessage> onChatMessageReceived;
@@ -66,9 +78,16 @@ public class NetworkGameManager {
      // Kreira novu igru kao host
     public NetworkGameEngine createGame(String hostName, int gamePort)
             throws Exception {
+        return createGame(hostName, gamePort, NetworkConstants.DEFAULT_PLAYERS);
+    }
+
+
+     // Kreira novu igru kao host za stol od maxPlayers igrača
+    public NetworkGameEngine createGame(String hostName, int gamePort, int maxPlayers)
+            throws Exception {
 
         // Kreiraj NetworkGameEngine kao host
-        gameEngine = new NetworkGameEngine(hostName, gamePort);
+        gameEngine = new NetworkGameEngine(hostName, gamePort, maxPlayers);
 
         // Generiraj jedinstveni game ID
         gameId = UUID.randomUUID().toString();
@@ -81,7 +100,7 @@ public class NetworkGameManager {
                 serverAddress,
                 gamePort,
                 1, // Trenutno 1 igrač (host)
-                2, // Max 2 igrača
+                maxPlayers,
                 GameInfo.GameStatus.WAITING
         );
 
@@ -96,7 +115,7 @@ public class NetworkGameManager {
         // Callback za update statusa
         gameEngine.playersInLobbyProperty().addListener((obs, oldVal, newVal) -> {
             try {
-                GameInfo.GameStatus status = newVal.intValue() >= 2 ?
+                GameInfo.GameStatus status = newVal.intValue() >= maxPlayers ?
                         GameInfo.GameStatus.FULL : GameInfo.GameStatus.WAITING;
                 lobby.updateGameStatus(gameId, newVal.intValue(), status);
             } catch (RemoteException e) {
@@ -107,7 +126,7 @@ public class NetworkGameManager {
         // Callback za game start
         gameEngine.setOnGameStartCallback(() -> {
             try {
-                lobby.updateGameStatus(gameId, 2, GameInfo.GameStatus.IN_PROGRESS);
+                lobby.updateGameStatus(gameId, gameEngine.playersInLobbyProperty().get(), GameInfo.GameStatus.IN_PROGRESS);
             } catch (RemoteException e) {
                 System.err.println("[NetworkGameManager] Greška pri update game status: " + e.getMessage());
             }
@@ -116,7 +135,7 @@ public class NetworkGameManager {
         // Callback za game over
         gameEngine.setOnGameOverCallback(() -> {
             try {
-                lobby.updateGameStatus(gameId, 2, GameInfo.GameStatus.FINISHED);
+                lobby.updateGameStatus(gameId, gameEngine.playersInLobbyProperty().get(), GameInfo.GameStatus.FINISHED);
             } catch (RemoteException e) {
                 System.err.println("[NetworkGameManager] Greška pri update game status: " + e.getMessage());
             }
@@ -142,7 +161,8 @@ public class NetworkGameManager {
         gameEngine = new NetworkGameEngine(
                 playerName,
                 gameInfo.getServerAddress(),
-                gameInfo.getServerPort()
+                gameInfo.getServerPort(),
+                gameInfo.getGameId()
         );
 
         System.out.println("[NetworkGameManager] Pridružen igri: " + gameId);
@@ -159,6 +179,100 @@ public class NetworkGameManager {
         return lobby.getAvailableGames();
     }
 
+    public GamePage findGames(GameQuery query) throws Exception {
+        return getLobbyService().findGames(query);
+    }
+
+
+    // Registrira lobby listener - onGamesListUpdated se zove odmah s trenutnom listom i nakon svake promjene
+    public void subscribeToLobby() throws Exception {
+        if (lobbyListener != null) return;
+
+        lobbyClientId = UUID.randomUUID().toString();
+        lobbyListener = new LobbyListenerImpl(this::onLobbyEvent);
+        applyLobbyDelta(getLobbyService().registerLobbyListener(lobbyClientId, lobbyListener));
+        System.out.println("[NetworkGameManager] Pretplaćen na lobby (verzija " + lobbyVersion + ")");
+    }
+
+    public void unsubscribeFromLobby() {
+        if (lobbyListener == null) return;
+
+        try {
+            getLobbyService().unregisterLobbyListener(lobbyClientId);
+        } catch (Exception e) {
+            System.err.println("[NetworkGameManager] Greška pri lobby unregister: " + e.getMessage());
+        }
+        try {
+            UnicastRemoteObject.unexportObject(lobbyListener, true);
+        } catch (RemoteException e) {
+            // Ignore
+        }
+        lobbyListener = null;
+        synchronized (lobbyLock) {
+            lobbyGames.clear();
+            lobbyVersion = -1;
+        }
+    }
+
+    // Događaji stižu redom, ali RMI ne jamči da callback ne stigne prije odgovora na registraciju -
+    // sve što ne slijedi točno iza lokalne verzije povlači delte od servera
+    private void onLobbyEvent(LobbyEvent event) {
+        long since;
+        synchronized (lobbyLock) {
+            if (event.getVersion() <= lobbyVersion) return;
+            if (lobbyVersion >= 0 && event.getVersion() == lobbyVersion + 1) {
+                applyLobbyEvent(event);
+                lobbyVersion = event.getVersion();
+                publishGamesList();
+                return;
+            }
+            since = lobbyVersion;
+        }
+        try {
+            applyLobbyDelta(getLobbyService().getAvailableGamesSince(since));
+        } catch (Exception e) {
+            System.err.println("[NetworkGameManager] Greška pri lobby sinkronizaciji: " + e.getMessage());
+        }
+    }
+
+    private void applyLobbyDelta(LobbyDelta delta) {
+        synchronized (lobbyLock) {
+            if (delta.getVersion() <= lobbyVersion) return;
+            if (delta.isSnapshot()) {
+                lobbyGames.clear();
+                delta.getSnapshot().forEach(game -> lobbyGames.put(game.getGameId(), game));
+            } else {
+                for (LobbyEvent event : delta.getEvents()) {
+                    if (event.getVersion() > lobbyVersion) {
+                        applyLobbyEvent(event);
+                    }
+                }
+            }
+            lobbyVersion = delta.getVersion();
+            publishGamesList();
+        }
+    }
+
+    private void applyLobbyEvent(LobbyEvent event) {
+        if (event.getType() == LobbyEvent.Type.REMOVED) {
+            lobbyGames.remove(event.getGameId());
+        } else {
+            lobbyGames.put(event.getGameId(), event.getGame());
+        }
+    }
+
+    // Isti filter i redoslijed kao LobbyService.getAvailableGames
+    private void publishGamesList() {
+        if (onGamesListUpdated == null) return;
+
+        List<GameInfo> games = lobbyGames.values().stream()
+                .filter(GameInfo::isJoinable)
+                .sorted(GameInfo.NEWEST_FIRST)
+                .toList();
+        Consumer<List<GameInfo>> callback = onGamesListUpdated;
+        Platform.runLater(() -> callback.accept(games));
+    }
+
 
     public void sendChatMessage(String message) throws Exception {
         if (gameId == null) {
@@ -180,20 +294,63 @@ public class NetworkGameManager {
         return chat.getMessages(gameId);
     }
 
+    // Samo poruke nakon zadnje koju klijent ima (ChatMessage.getSequence)
+    public List<ChatMessage> getChatMessagesAfter(long sequence) throws Exception {
+        if (gameId == null) {
+            throw new IllegalStateException("Nije u igri");
+        }
+
+        return getChatService().getMessagesAfter(gameId, sequence);
+    }
+
 
     private void setupChatListener(String playerName) throws Exception {
         ChatService chat = getChatService();
 
-        chatListener = new ChatListenerImpl(message -> {
-            if (onChatMessageReceived != null) {
-                Platform.runLater(() -> onChatMessageReceived.accept(message));
-            }
-        });
+        synchronized (chatLock) {
+            chatSequence = -1;
+        }
+        chatListener = new ChatListenerImpl(this::onChatMessage);
 
         chat.registerChatListener(gameId, playerName, chatListener);
     }
 
+    // Server poruke šalje redom, ali kad klijent ne stiže primati odbacuje najstarije iz njegovog reda -
+    // rupa u rednim brojevima se popuni iz historyja (getMessagesAfter), duplikati se preskaču
+    private void onChatMessage(ChatMessage message) {
+        synchronized (chatLock) {
+            long sequence = message.getSequence();
+            if (sequence <= 0 || chatSequence < 0 || sequence == chatSequence + 1) {
+                chatSequence = Math.max(chatSequence, sequence);
+                publishChatMessage(message);
+                return;
+            }
+            if (sequence <= chatSequence) return;
+
+            try {
+                for (ChatMessage missed : getChatMessagesAfter(chatSequence)) {
+                    if (missed.getSequence() > chatSequence && missed.getSequence() < sequence) {
+                        publishChatMessage(missed);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("[NetworkGameManager] Propuštene chat poruke " + (chatSequence + 1) + "-" +
+                        (sequence - 1) + " nisu dohvaćene: " + e.getMessage());
+            }
+            chatSequence = sequence;
+            publishChatMessage(message);
+        }
+    }
+
+    private void publishChatMessage(ChatMessage message) {
+        if (onChatMessageReceived != null) {
+            Platform.runLater(() -> onChatMessageReceived.accept(message));
+        }
+    }
+
     public void shutdown() {
+        unsubscribeFromLobby();
+
         if (gameEngine != null) {
             gameEngine.shutdown();
         }
@@ -251,7 +408,7 @@ public class NetworkGameManager {
         if (useJNDI) {
             return jndiClient.getLobbyService();
         } else {
-            return getLobbyService();
+            return rmiClient.getLobbyService();
         }
     }
 
@@ -261,7 +418,26 @@ public class NetworkGameManager {
         if (useJNDI) {
             return jndiClient.getChatService();
         } else {
-            return getChatService();
+            return rmiClient.getChatService();
+        }
+    }
+
+
+     // Implementacija LobbyListener-a za primanje promjena u lobbyu
+    private static class LobbyListenerImpl extends UnicastRemoteObject implements LobbyListener {
+
+        private final Consumer<LobbyEvent> callback;
+
+        protected LobbyListenerImpl(Consumer<LobbyEvent> callback) throws RemoteException {
+            super();
+            this.callback = callback;
+        }
+
+        @Override
+        public void onLobbyEvent(LobbyEvent event) throws RemoteException {
+            if (callback != null) {
+                callback.accept(event);
+            }
         }
     }
 
@@ -0,0 +1,487 @@
+package hr.ipicek.jamb.network.protocol;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+
+ // Kompaktni binarni format za GameMessage - zamjena za Java serijalizaciju na socketu.
+ // Zaglavlje: [MAGIC][tip][flags][timestamp varint][sender?][gameId?][tag payloada][payload]
+ // Kockice idu kao nibble (2 po bajtu), held kao bit maska, kategorije kao ordinal, bodovi kao zigzag varint.
+ // Payload koji codec ne poznaje ide kao ugniježđeni Java serijalizirani blob, pa nijedna poruka ne pada.
+public final class BinaryMessageCodec {
+
+    // Java serijalizacija uvijek počinje s 0xAC pa se formati razlikuju po prvom bajtu
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final ScoreCategory[] CATEGORIES = ScoreCategory.values();
+    private static final String SYSTEM = "SYSTEM";
+
+    // Flags u zaglavlju
+    private static final int F_SYSTEM_SENDER = 1;
+    private static final int F_GAME_ID = 1 << 1;
+    private static final int F_GAME_ID_UUID = 1 << 2;
+    private static final int F_TIMESTAMP = 1 << 3;
+
+    // Tagovi payloada
+    private static final int P_NULL = 0;
+    private static final int P_STRING = 1;
+    private static final int P_STATE = 2;
+    private static final int P_HOLD = 3;
+    private static final int P_MOVE = 4;
+    private static final int P_GAME_OVER = 5;
+    private static final int P_DICE = 6;
+    private static final int P_NAMES = 7;
+    private static final int P_LONG = 8;
+    private static final int P_RECONNECT = 9;
+    private static final int P_JAVA = 0x7F;
+
+    // Flags GameStateUpdate payloada
+    private static final int S_SNAPSHOT = 1;
+    private static final int S_DICE = 1 << 1;
+    private static final int S_HELD = 1 << 2;
+    private static final int S_GAME_OVER = 1 << 3;
+
+    private BinaryMessageCodec() {}
+
+    public static boolean isBinary(byte[] body, int offset, int length) {
+        return length > 0 && body[offset] == MAGIC;
+    }
+
+    public static byte[] encode(GameMessage message) throws IOException {
+        Writer w = new Writer();
+        w.writeByte(MAGIC);
+        w.writeByte(message.getType().ordinal());
+
+        String sender = message.getSenderName();
+        String gameId = message.getGameId();
+        UUID uuid = gameId != null ? parseUuid(gameId) : null;
+        int flags = 0;
+        if (SYSTEM.equals(sender)) flags |= F_SYSTEM_SENDER;
+        if (gameId != null) flags |= F_GAME_ID;
+        if (uuid != null) flags |= F_GAME_ID_UUID;
+        if (message.getTimestamp() != null) flags |= F_TIMESTAMP;
+        w.writeByte(flags);
+
+        if (message.getTimestamp() != null) {
+            w.writeVarLong(message.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if ((flags & F_SYSTEM_SENDER) == 0) w.writeString(sender);
+        if (uuid != null) {
+            w.writeLong(uuid.getMostSignificantBits());
+            w.writeLong(uuid.getLeastSignificantBits());
+        } else if (gameId != null) {
+            w.writeString(gameId);
+        }
+
+        writePayload(w, message.getPayload());
+        return w.toByteArray();
+    }
+
+    public static GameMessage decode(byte[] body, int offset, int length) throws IOException {
+        Reader r = new Reader(body, offset, length);
+        try {
+            if ((byte) r.readByte() != MAGIC) {
+                throw new StreamCorruptedException("Nije binarni okvir");
+            }
+            MessageType type = TYPES[r.readByte()];
+            int flags = r.readByte();
+
+            LocalDateTime timestamp = null;
+            if ((flags & F_TIMESTAMP) != 0) {
+                timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(r.readVarLong()), ZoneOffset.UTC);
+            }
+            String sender = (flags & F_SYSTEM_SENDER) != 0 ? SYSTEM : r.readString();
+            String gameId = null;
+            if ((flags & F_GAME_ID_UUID) != 0) {
+                gameId = new UUID(r.readLong(), r.readLong()).toString();
+            } else if ((flags & F_GAME_ID) != 0) {
+                gameId = r.readString();
+            }
+
+            Object payload = readPayload(r);
+            if (r.pos != r.end) {
+                throw new StreamCorruptedException("Višak bajtova u okviru: " + (r.end - r.pos));
+            }
+            return new GameMessage(type, sender, payload, timestamp, gameId);
+        } catch (RuntimeException e) {
+            // Nepoznat ordinal tipa/kategorije, neispravan Java payload i sl. - za pozivatelja je to pokvaren okvir
+            throw new StreamCorruptedException("Neispravan binarni okvir: " + e);
+        }
+    }
+
+    // Payload
+
+    private static void writePayload(Writer w, Object payload) throws IOException {
+        int mark = w.pos;
+        try {
+            if (payload == null) {
+                w.writeByte(P_NULL);
+            } else if (payload instanceof String s) {
+                w.writeByte(P_STRING);
+                w.writeString(s);
+            } else if (payload instanceof GameStateUpdate state) {
+                w.writeByte(P_STATE);
+                writeState(w, state);
+            } else if (payload instanceof GameMessage.DiceHoldData hold) {
+                w.writeByte(P_HOLD);
+                w.writeVarInt(hold.dieIndex() << 1 | (hold.held() ? 1 : 0));
+            } else if (payload instanceof PlayerMove move) {
+                w.writeByte(P_MOVE);
+                w.writeString(move.playerName());
+                w.writeByte(move.category().ordinal());
+                w.writeSignedVarInt(move.score());
+                w.writeDice(move.diceValues());
+                w.writeVarInt(move.rollNumber());
+            } else if (payload instanceof GameMessage.GameOverData over) {
+                w.writeByte(P_GAME_OVER);
+                w.writeString(over.winnerName());
+                w.writeSignedVarInt(over.score());
+            } else if (payload instanceof int[] dice) {
+                w.writeByte(P_DICE);
+                w.writeDice(Arrays.stream(dice).boxed().toList());
+            } else if (payload instanceof List<?> list && list.stream().allMatch(String.class::isInstance)) {
+                w.writeByte(P_NAMES);
+                w.writeVarInt(list.size());
+                for (Object name : list) w.writeString((String) name);
+            } else if (payload instanceof GameMessage.ReconnectData reconnect) {
+                w.writeByte(P_RECONNECT);
+                w.writeString(reconnect.sessionToken());
+                w.writeVarLong(reconnect.lastSequence());
+                w.writeString(reconnect.wireFormat());
+            } else if (payload instanceof Long v) {
+                // PING/PONG - nanoTime je ionako velik pa ide fiksnih 8 bajtova
+                w.writeByte(P_LONG);
+                w.writeLong(v);
+            } else {
+                writeJava(w, payload);
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // Vrijednosti koje ne stanu u kompaktni layout (npr. kockica > 15) - fallback na serijalizaciju
+            w.pos = mark;
+            writeJava(w, payload);
+        }
+    }
+
+    private static Object readPayload(Reader r) throws IOException {
+        int tag = r.readByte();
+        return switch (tag) {
+            case P_NULL -> null;
+            case P_STRING -> r.readString();
+            case P_STATE -> readState(r);
+            case P_HOLD -> {
+                int v = r.readVarInt();
+                yield new GameMessage.DiceHoldData(v >>> 1, (v & 1) != 0);
+            }
+            case P_MOVE -> new PlayerMove(r.readString(), CATEGORIES[r.readByte()], r.readSignedVarInt(),
+                    r.readDice(), r.readVarInt());
+            case P_GAME_OVER -> new GameMessage.GameOverData(r.readString(), r.readSignedVarInt());
+            case P_DICE -> r.readDice().stream().mapToInt(Integer::intValue).toArray();
+            case P_NAMES -> {
+                int n = r.readVarInt();
+                r.require(n); // svako ime je barem jedan bajt - ne alociraj listu prema pokvarenoj duljini
+                List<String> names = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) names.add(r.readString());
+                yield names;
+            }
+            case P_LONG -> r.readLong();
+            case P_RECONNECT -> new GameMessage.ReconnectData(r.readString(), r.readVarLong(), r.readString());
+            case P_JAVA -> readJava(r);
+            default -> throw new StreamCorruptedException("Nepoznat tag payloada: " + tag);
+        };
+    }
+
+    // [sequence][flags][kockice?][held maska?][rollCount][currentIndex][currentName][sheets][totals][winner]
+    // Delta bez promjene kockica/holda ih uopće ne zapisuje (flag bit), hold flip je jedan bajt maske
+    private static void writeState(Writer w, GameStateUpdate state) {
+        List<Integer> dice = state.diceValues();
+        List<Boolean> held = state.diceHeld();
+        int flags = 0;
+        if (state.snapshot()) flags |= S_SNAPSHOT;
+        if (dice != null) flags |= S_DICE;
+        if (held != null) flags |= S_HELD;
+        if (state.gameOver()) flags |= S_GAME_OVER;
+
+        w.writeVarLong(state.sequence());
+        w.writeByte(flags);
+        if (dice != null) {
+            w.writeDice(dice);
+        }
+        if (held != null) {
+            if (held.size() > Long.SIZE) {
+                throw new IllegalArgumentException("Previše held zastavica: " + held.size());
+            }
+            long mask = 0;
+            for (int i = 0; i < held.size(); i++) {
+                if (held.get(i)) mask |= 1L << i;
+            }
+            w.writeVarInt(held.size());
+            w.writeVarLong(mask);
+        }
+
+        w.writeVarInt(state.rollCount());
+        w.writeSignedVarInt(state.currentPlayerIndex());
+        w.writeString(state.currentPlayerName());
+
+        Map<String, Map<ScoreCategory, Integer>> sheets = state.scoreSheets();
+        w.writeVarInt(sheets.size());
+        for (var sheet : sheets.entrySet()) {
+            w.writeString(sheet.getKey());
+            w.writeVarInt(sheet.getValue().size());
+            for (var score : sheet.getValue().entrySet()) {
+                w.writeByte(score.getKey().ordinal());
+                w.writeSignedVarInt(score.getValue());
+            }
+        }
+
+        Map<String, Integer> totals = state.totalScores();
+        w.writeVarInt(totals.size());
+        for (var total : totals.entrySet()) {
+            w.writeString(total.getKey());
+            w.writeSignedVarInt(total.getValue());
+        }
+
+        w.writeString(state.winnerName());
+    }
+
+    private static GameStateUpdate readState(Reader r) throws IOException {
+        long sequence = r.readVarLong();
+        int flags = r.readByte();
+
+        List<Integer> dice = (flags & S_DICE) != 0 ? r.readDice() : null;
+        List<Boolean> held = null;
+        if ((flags & S_HELD) != 0) {
+            int n = r.readVarInt();
+            if (n > Long.SIZE) throw new StreamCorruptedException("Previše held zastavica: " + n);
+            long mask = r.readVarLong();
+            held = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                held.add((mask & (1L << i)) != 0);
+            }
+        }
+
+        int rollCount = r.readVarInt();
+        int currentIndex = r.readSignedVarInt();
+        String currentName = r.readString();
+
+        int sheetCount = r.readVarInt();
+        Map<String, Map<ScoreCategory, Integer>> sheets = new HashMap<>();
+        for (int i = 0; i < sheetCount; i++) {
+            String name = r.readString();
+            int n = r.readVarInt();
+            Map<ScoreCategory, Integer> scores = new EnumMap<>(ScoreCategory.class);
+            for (int j = 0; j < n; j++) {
+                scores.put(CATEGORIES[r.readByte()], r.readSignedVarInt());
+            }
+            sheets.put(name, scores);
+        }
+
+        int totalCount = r.readVarInt();
+        Map<String, Integer> totals = new HashMap<>();
+        for (int i = 0; i < totalCount; i++) {
+            totals.put(r.readString(), r.readSignedVarInt());
+        }
+
+        String winner = r.readString();
+        return new GameStateUpdate(sequence, (flags & S_SNAPSHOT) != 0, dice, held, rollCount, currentIndex,
+                currentName, sheets, totals, (flags & S_GAME_OVER) != 0, winner);
+    }
+
+    private static void writeJava(Writer w, Object payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        }
+        w.writeByte(P_JAVA);
+        w.writeVarInt(bytes.size());
+        w.writeBytes(bytes.toByteArray());
+    }
+
+    private static Object readJava(Reader r) throws IOException {
+        int length = r.readVarInt();
+        r.require(length);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(r.buf, r.pos, length))) {
+            r.pos += length;
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new StreamCorruptedException("Nepoznata klasa: " + e.getMessage());
+        }
+    }
+
+    private static UUID parseUuid(String id) {
+        try {
+            UUID uuid = UUID.fromString(id);
+            // fromString prihvaća i skraćene oblike - koristi binarni zapis samo ako je povratno isti string
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    private static final class Writer {
+        private byte[] buf = new byte[64];
+        private int pos;
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeLong(long v) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (v >>> shift));
+            }
+        }
+
+        void writeVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            writeByte((int) v);
+        }
+
+        void writeVarInt(int v) {
+            if (v < 0) throw new IllegalArgumentException("Negativna vrijednost: " + v);
+            writeVarLong(v);
+        }
+
+        void writeSignedVarInt(int v) {
+            writeVarLong(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL);
+        }
+
+        // null se zapisuje kao 0, a string duljine n kao n + 1
+        void writeString(String s) {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        // Broj kockica pa po dvije vrijednosti (0-15) u bajtu
+        void writeDice(List<Integer> dice) {
+            writeVarInt(dice.size());
+            for (int i = 0; i < dice.size(); i += 2) {
+                int lo = nibble(dice.get(i));
+                int hi = i + 1 < dice.size() ? nibble(dice.get(i + 1)) : 0;
+                writeByte(hi << 4 | lo);
+            }
+        }
+
+        private static int nibble(int value) {
+            if (value < 0 || value > 15) throw new IllegalArgumentException("Vrijednost kockice: " + value);
+            return value;
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+
+    private static final class Reader {
+        private final byte[] buf;
+        private final int end;
+        private int pos;
+
+        Reader(byte[] buf, int offset, int length) {
+            this.buf = buf;
+            this.pos = offset;
+            this.end = offset + length;
+        }
+
+        void require(int n) throws StreamCorruptedException {
+            if (n < 0 || n > end - pos) { // pos + n bi se za golemu duljinu prelio
+                throw new StreamCorruptedException("Okvir prekratak");
+            }
+        }
+
+        int readByte() throws StreamCorruptedException {
+            require(1);
+            return buf[pos++] & 0xFF;
+        }
+
+        long readLong() throws StreamCorruptedException {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | readByte();
+            }
+            return v;
+        }
+
+        long readVarLong() throws StreamCorruptedException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new StreamCorruptedException("Predugačak varint");
+        }
+
+        int readVarInt() throws StreamCorruptedException {
+            long v = readVarLong();
+            if (v > Integer.MAX_VALUE) throw new StreamCorruptedException("Varint izvan raspona: " + v);
+            return (int) v;
+        }
+
+        int readSignedVarInt() throws StreamCorruptedException {
+            int v = (int) readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString() throws StreamCorruptedException {
+            int n = readVarInt();
+            if (n == 0) return null;
+            require(n - 1);
+            String s = new String(buf, pos, n - 1, StandardCharsets.UTF_8);
+            pos += n - 1;
+            return s;
+        }
+
+        List<Integer> readDice() throws StreamCorruptedException {
+            int n = readVarInt();
+            require((n + 1) / 2);
+            List<Integer> dice = new ArrayList<>(n);
+            for (int i = 0; i < n; i += 2) {
+                int b = readByte();
+                dice.add(b & 0x0F);
+                if (i + 1 < n) dice.add(b >>> 4);
+            }
+            return dice;
+        }
+    }
+}
@@ -16,12 +16,25 @@ public class GameMessage implements Serializable {
     // tu si pospremam sve (playemove, string za chat, gameState)
     private final Object payload;
     private final LocalDateTime timestamp;
+    // ID stola kojem poruka pripada (null kad server vodi samo jednu igru)
+    private final String gameId;
 
     public GameMessage(MessageType type, String senderName, Object payload) {
+        this(type, senderName, payload, LocalDateTime.now(), null);
+    }
+
+    // Puni konstruktor - koristi ga i BinaryMessageCodec kod dekodiranja
+    GameMessage(MessageType type, String senderName, Object payload, LocalDateTime timestamp, String gameId) {
         this.type = type;
         this.senderName = senderName;
         this.payload = payload;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
+        this.gameId = gameId;
+    }
+
+    // Kopija poruke adresirana na zadani stol
+    public GameMessage withGameId(String gameId) {
+        return new GameMessage(type, senderName, payload, timestamp, gameId);
     }
 
     // Static factory metode za kreaciju poruka
@@ -67,6 +80,16 @@ public class GameMessage implements Serializable {
         return new GameMessage(MessageType.DISCONNECT, playerName, null);
     }
 
+    // Server potvrđuje ulazak (ili nastavak) i daje token sesije za RECONNECT_REQUEST
+    public static GameMessage session(String sessionToken) {
+        return new GameMessage(MessageType.ACKNOWLEDGE, "SYSTEM", sessionToken);
+    }
+
+    public static GameMessage reconnectRequest(String playerName, String sessionToken, long lastSequence, String wireFormat) {
+        return new GameMessage(MessageType.RECONNECT_REQUEST, playerName,
+                new ReconnectData(sessionToken, lastSequence, wireFormat));
+    }
+
     public static GameMessage error(String errorMessage) {
         return new GameMessage(MessageType.ERROR, "SYSTEM", errorMessage);
     }
@@ -84,6 +107,9 @@ public class GameMessage implements Serializable {
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
+    public String getGameId() {
+        return gameId;
+    }
 
     // Helper metode za type-safe pristup payload-u
     @SuppressWarnings("unchecked")
@@ -114,4 +140,10 @@ public class GameMessage implements Serializable {
         @Serial
         private static final long serialVersionUID = 1L;
     }
+
+    // lastSequence je zadnji GameStateUpdate koji je klijent primijenio, wireFormat je ponuda kao u PLAYER_JOINED
+    public record ReconnectData(String sessionToken, long lastSequence, String wireFormat) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package hr.ipicek.jamb.network.protocol;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+
+import java.util.List;
+import java.util.Map;
+
+
+ // Host strana delta updatea: pamti zadnje poslano stanje i numerira verzije.
+ // Stream je TCP pa je prethodna verzija ujedno i potvrđena - klijent koji vidi rupu u sekvenci šalje SYNC_REQUEST.
+public final class GameStateSequencer {
+
+    private long sequence;
+    private List<Integer> sentDice = List.of();
+    private List<Boolean> sentHeld = List.of();
+    private String sentCurrentPlayer;
+
+    // Nova verzija - kockice, held i ime igrača na potezu samo ako su se promijenili
+    public GameStateUpdate delta(List<Integer> diceValues, List<Boolean> diceHeld, int rollCount,
+                                 int currentPlayerIndex, String currentPlayerName,
+                                 Map<String, Map<ScoreCategory, Integer>> changedScores,
+                                 Map<String, Integer> changedTotals, boolean gameOver, String winnerName) {
+        List<Integer> dice = diceValues.equals(sentDice) ? null : List.copyOf(diceValues);
+        List<Boolean> held = diceHeld.equals(sentHeld) ? null : List.copyOf(diceHeld);
+        String current = currentPlayerName.equals(sentCurrentPlayer) ? null : currentPlayerName;
+        remember(diceValues, diceHeld, currentPlayerName);
+
+        return new GameStateUpdate(++sequence, false, dice, held, rollCount, currentPlayerIndex, current,
+                changedScores, changedTotals, gameOver, winnerName);
+    }
+
+    // Puno stanje trenutne verzije - ne pomiče sekvencu, pa ga se može poslati samo jednom klijentu
+    public GameStateUpdate snapshot(List<Integer> diceValues, List<Boolean> diceHeld, int rollCount,
+                                    int currentPlayerIndex, String currentPlayerName,
+                                    Map<String, Map<ScoreCategory, Integer>> scoreSheets,
+                                    Map<String, Integer> totalScores, boolean gameOver, String winnerName) {
+        remember(diceValues, diceHeld, currentPlayerName);
+        return new GameStateUpdate(sequence, true, List.copyOf(diceValues), List.copyOf(diceHeld), rollCount,
+                currentPlayerIndex, currentPlayerName, scoreSheets, totalScores, gameOver, winnerName);
+    }
+
+    private void remember(List<Integer> diceValues, List<Boolean> diceHeld, String currentPlayerName) {
+        sentDice = List.copyOf(diceValues);
+        sentHeld = List.copyOf(diceHeld);
+        sentCurrentPlayer = currentPlayerName;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -8,8 +8,12 @@ import java.util.Map;
 
 
 // Game state za broadcast prema svim klijentima (Update za UI)
-public record GameStateUpdate(List<Integer> diceValues, List<Boolean> diceHeld, int rollCount, int currentPlayerIndex,
-                              String currentPlayerName, Map<String, Map<ScoreCategory, Integer>> scoreSheets,
+// sequence raste za svaki delta; snapshot nosi puno stanje za verziju sequence (join, SYNC_RESPONSE).
+// U delti null za diceValues/diceHeld/currentPlayerName znači "nije se promijenilo",
+// a scoreSheets/totalScores nose samo upisane kategorije.
+public record GameStateUpdate(long sequence, boolean snapshot, List<Integer> diceValues, List<Boolean> diceHeld,
+                              int rollCount, int currentPlayerIndex, String currentPlayerName,
+                              Map<String, Map<ScoreCategory, Integer>> scoreSheets,
                               Map<String, Integer> totalScores, boolean gameOver,
                               String winnerName) implements Serializable {
 
@@ -17,10 +21,12 @@ public record GameStateUpdate(List<Integer> diceValues, List<Boolean> diceHeld,
     @Override
     public String toString() {
         return "GameStateUpdate{" +
-                "rollCount=" + rollCount +
-                ", currentPlayer=" + currentPlayerName +
+                "seq=" + sequence +
+                (snapshot ? ", snapshot" : "") +
+                ", rollCount=" + rollCount +
+                ", currentPlayer=" + currentPlayerIndex +
                 ", diceValues=" + diceValues +
                 ", gameOver=" + gameOver +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -35,5 +35,6 @@ public enum MessageType {
     TIMEOUT,                // Timeout (igrač nije igrao na vrijeme)
     ACKNOWLEDGE,            // Potvrda primitka poruke
     SYNC_REQUEST,           // Request za sinkronizaciju
-    SYNC_RESPONSE           // Response sa trenutnim stanjem
+    SYNC_RESPONSE,          // Response sa trenutnim stanjem
+    SPECTATE_REQUEST        // Gledatelj se spaja (samo prima odgođeno stanje igre)
 }
\ No newline at end of file
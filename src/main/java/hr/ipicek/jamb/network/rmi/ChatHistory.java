@@ -0,0 +1,102 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+ // Zadnjih capacity poruka jedne igre u kružnom bufferu. Svaka spremljena poruka dobiva sljedeći redni broj
+ // (1, 2, 3...), pa su brojevi u bufferu uzastopni i poruka n je na poziciji (n - prvi) od početka -
+ // dodavanje i pronalazak početka za "poruke nakon n" su O(1), bez kopiranja cijele povijesti.
+final class ChatHistory {
+
+    private final ChatMessage[] buffer;
+    private int head;       // pozicija najstarije poruke
+    private int size;
+    private long nextSequence = 1;
+
+    ChatHistory(int capacity) {
+        this.buffer = new ChatMessage[capacity];
+    }
+
+    // @return spremljena poruka s rednim brojem
+    synchronized ChatMessage append(ChatMessage message) {
+        ChatMessage stored = message.withSequence(nextSequence++);
+        if (size == buffer.length) {
+            // Pun - nova poruka prepisuje najstariju
+            buffer[head] = stored;
+            head = (head + 1) % buffer.length;
+        } else {
+            buffer[(head + size) % buffer.length] = stored;
+            size++;
+        }
+        return stored;
+    }
+
+    synchronized List<ChatMessage> all() {
+        return slice(0);
+    }
+
+    // Poruke s rednim brojem većim od sequence; ako su neke već prepisane, vraća od najstarije koja postoji
+    synchronized List<ChatMessage> after(long sequence) {
+        long first = nextSequence - size;
+        long from = Math.max(sequence + 1, first);
+        if (from >= nextSequence) return List.of();
+        return slice((int) (from - first));
+    }
+
+    synchronized List<ChatMessage> filter(Predicate<ChatMessage> predicate) {
+        List<ChatMessage> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ChatMessage message = buffer[(head + i) % buffer.length];
+            if (predicate.test(message)) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    synchronized ChatMessage last() {
+        return size == 0 ? null : buffer[(head + size - 1) % buffer.length];
+    }
+
+    // Redni brojevi se nastavljaju, da klijent s getMessagesAfter ne dobije stare brojeve za nove poruke
+    synchronized void clear() {
+        Arrays.fill(buffer, null);
+        head = 0;
+        size = 0;
+    }
+
+    // Oporavak iz journala - poruke zadržavaju svoje redne brojeve
+    synchronized void restore(long firstSequence, Collection<ChatMessage> messages) {
+        clear();
+        nextSequence = firstSequence;
+        for (ChatMessage message : messages) {
+            buffer[(head + size) % buffer.length] = message;
+            if (size == buffer.length) {
+                head = (head + 1) % buffer.length;
+            } else {
+                size++;
+            }
+            nextSequence = message.getSequence() + 1;
+        }
+    }
+
+    synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private List<ChatMessage> slice(int offset) {
+        List<ChatMessage> result = new ArrayList<>(size - offset);
+        for (int i = offset; i < size; i++) {
+            result.add(buffer[(head + i) % buffer.length]);
+        }
+        return result;
+    }
+}
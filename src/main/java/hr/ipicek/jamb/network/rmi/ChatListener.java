@@ -2,6 +2,7 @@ package hr.ipicek.jamb.network.rmi;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 
 // callback interface za chat poruke, ovo se implementira u clientu i registrira u chat service
@@ -9,4 +10,11 @@ public interface ChatListener extends Remote {
 
 // callback metoda koja se poziva kad stigne nova chat poruka
 void onMessageReceived(ChatMessage message) throws RemoteException;
-}
\ No newline at end of file
+
+// više poruka koje su se skupile za ovog listenera, u jednom remote pozivu (redom kako su poslane)
+default void onMessagesReceived(List<ChatMessage> messages) throws RemoteException {
+    for (ChatMessage message : messages) {
+        onMessageReceived(message);
+    }
+}
+}
@@ -15,6 +15,8 @@ public class ChatMessage implements Serializable {
     private final String message;
     private final LocalDateTime timestamp;
     private final MessageType type;
+    // Redni broj u chatu igre - dodjeljuje ga ChatService kad spremi poruku, do tada 0
+    private final long sequence;
 
     public enum MessageType {
         REGULAR,        // Obična poruka
@@ -24,10 +26,16 @@ public class ChatMessage implements Serializable {
     }
 
     public ChatMessage(String sender, String message, MessageType type) {
+        this(sender, message, type, LocalDateTime.now(), 0);
+    }
+
+    // withSequence i oporavak iz journala
+    ChatMessage(String sender, String message, MessageType type, LocalDateTime timestamp, long sequence) {
         this.sender = sender;
         this.message = message;
         this.type = type;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
+        this.sequence = sequence;
     }
 
     public ChatMessage(String sender, String message) {
@@ -47,6 +55,11 @@ public class ChatMessage implements Serializable {
         return new ChatMessage("GAME", message, MessageType.GAME_EVENT);
     }
 
+    // Ista poruka s rednim brojem iz historyja
+    public ChatMessage withSequence(long sequence) {
+        return new ChatMessage(sender, message, type, timestamp, sequence);
+    }
+
     // Getteri
     public String getSender() {
         return sender;
@@ -60,6 +73,9 @@ public class ChatMessage implements Serializable {
     public MessageType getType() {
         return type;
     }
+    public long getSequence() {
+        return sequence;
+    }
 
     // Formatiranje
     public String getFormattedTime() {
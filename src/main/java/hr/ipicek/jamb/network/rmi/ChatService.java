@@ -12,6 +12,8 @@ public interface ChatService extends Remote {
     void sendMessage(String gameId, ChatMessage message) throws RemoteException;
     List<ChatMessage> getMessages(String gameId) throws RemoteException;
     List<ChatMessage> getNewMessages(String gameId, java.time.LocalDateTime since) throws RemoteException;
+    // poruke s rednim brojem većim od sequence (ChatMessage.getSequence), 0 = sve koje su u historyju
+    List<ChatMessage> getMessagesAfter(String gameId, long sequence) throws RemoteException;
     void clearMessages(String gameId) throws RemoteException;
     void registerChatListener(String gameId, String playerName, ChatListener callback)
             throws RemoteException;
@@ -1,26 +1,45 @@
 package hr.ipicek.jamb.network.rmi;
 
+import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
+
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 // chat servis koji upravlja svim chat porukama i notifikacijama za sve igre
 public class ChatServiceImpl extends UnicastRemoteObject implements ChatService {
 
     private static final long serialVersionUID = 1L;
-    private static final int MAX_MESSAGES_PER_GAME = 100;
+    static final int MAX_MESSAGES_PER_GAME = 100;
 
     // mapiraj listu chat poruka na odredjeni game
-    private final Map<String, List<ChatMessage>> chatHistory;
-    private final Map<String, Map<String, ChatListener>> listeners;
+    private final Map<String, ChatHistory> chatHistory;
+    private final Map<String, Map<String, ListenerOutbox<ChatMessage>>> listeners;
+
+    // Propuštene (odbačene) poruke klijent popuni iz historyja - NetworkGameManager.onChatMessage
+    private static final ListenerOutbox.Policy OUTBOX_POLICY = new ListenerOutbox.Policy(
+            NetworkConstants.CHAT_OUTBOX_CAPACITY, NetworkConstants.CHAT_MAX_BATCH,
+            NetworkConstants.CHAT_LISTENER_MAX_FAILURES, NetworkConstants.CHAT_RETRY_DELAY_MS);
+
+    // Postavlja RMIRegistryServer ako je journal uključen
+    private volatile Journal journal;
+
+    // Remote pozive listenerima radi dispatcher, nikad thread koji je pozvao sendMessage
+    private final ExecutorService dispatcher = ThreadUtils.VIRTUAL_THREADS
+            ? ThreadUtils.newVirtualThreadPerTaskExecutor("ChatDispatch-")
+            : Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "ChatDispatch");
+                t.setDaemon(true);
+                return t;
+            });
 
     public ChatServiceImpl() throws RemoteException {
         super();
@@ -35,49 +54,81 @@ public class ChatServiceImpl extends UnicastRemoteObject implements ChatService
             throw new IllegalArgumentException("GameId i message ne mogu biti null");
         }
 
-        // Dodaj poruku u history
-        chatHistory.computeIfAbsent(gameId, k -> new CopyOnWriteArrayList<>()).add(message);
-
-        // Ograniči broj poruka
-        List<ChatMessage> messages = chatHistory.get(gameId);
-        if (messages.size() > MAX_MESSAGES_PER_GAME) {
-            messages.remove(0);
+        // Dodaj poruku u history (najstarija se prepisuje kad ih je MAX_MESSAGES_PER_GAME)
+        ChatHistory history = chatHistory.computeIfAbsent(gameId, k -> new ChatHistory(MAX_MESSAGES_PER_GAME));
+        ChatMessage stored;
+        // Pod istim lockom kao i append, pa listeneri dobivaju poruke redom po rednom broju
+        synchronized (history) {
+            stored = history.append(message);
+            if (journal != null) {
+                journal.chatAppend(gameId, stored);
+            }
+            notifyListeners(gameId, stored);
         }
-        System.out.println("[ChatService] Nova poruka u igri " + gameId + ": " + message);
-        notifyListeners(gameId, message);
+        System.out.println("[ChatService] Nova poruka u igri " + gameId + ": " + stored);
     }
 
     @Override
     public List<ChatMessage> getMessages(String gameId) throws RemoteException {
-        List<ChatMessage> messages = chatHistory.get(gameId);
-        return messages != null ? new ArrayList<>(messages) : Collections.emptyList();
+        ChatHistory history = chatHistory.get(gameId);
+        return history != null ? history.all() : Collections.emptyList();
+    }
+
+    @Override
+    public List<ChatMessage> getMessagesAfter(String gameId, long sequence) throws RemoteException {
+        ChatHistory history = chatHistory.get(gameId);
+        return history != null ? history.after(sequence) : Collections.emptyList();
     }
 
     @Override
     public List<ChatMessage> getNewMessages(String gameId, LocalDateTime since)
             throws RemoteException {
-        List<ChatMessage> messages = chatHistory.get(gameId);
+        ChatHistory history = chatHistory.get(gameId);
 
-        if (messages == null) {
+        if (history == null) {
             return Collections.emptyList();
         }
 
-        return messages.stream()
-                .filter(msg -> msg.getTimestamp().isAfter(since))
-                .collect(Collectors.toList());
+        // Timestamp postavlja klijent pošiljatelja, pa nije nužno rastući - filtrira se cijeli (ograničeni) buffer
+        return history.filter(msg -> msg.getTimestamp().isAfter(since));
     }
 
     @Override
     public void clearMessages(String gameId) throws RemoteException {
-        chatHistory.remove(gameId);
+        ChatHistory history = chatHistory.get(gameId);
+        if (history != null) {
+            synchronized (history) {
+                history.clear();
+                if (journal != null) {
+                    journal.chatClear(gameId, history.getNextSequence());
+                }
+            }
+        }
         System.out.println("[ChatService] Očišćene poruke za igru: " + gameId);
     }
 
     @Override
     public void registerChatListener(String gameId, String playerName, ChatListener callback)
             throws RemoteException {
-        listeners.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>())
-                .put(playerName, callback);
+        if (gameId == null || playerName == null || callback == null) {
+            throw new IllegalArgumentException("GameId, playerName i callback ne mogu biti null");
+        }
+
+        Map<String, ListenerOutbox<ChatMessage>> gameListeners =
+                listeners.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>());
+        ListenerOutbox<ChatMessage> outbox = new ListenerOutbox<>("ChatService", playerName, OUTBOX_POLICY, dispatcher,
+                batch -> {
+                    if (batch.size() == 1) {
+                        callback.onMessageReceived(batch.get(0));
+                    } else {
+                        callback.onMessagesReceived(batch);
+                    }
+                },
+                evicted -> gameListeners.remove(evicted.getName(), evicted));
+        ListenerOutbox<ChatMessage> previous = gameListeners.put(playerName, outbox);
+        if (previous != null) {
+            previous.close();
+        }
 
         System.out.println("[ChatService] Registriran listener: " + playerName + " za igru " + gameId);
 
@@ -88,10 +139,13 @@ public class ChatServiceImpl extends UnicastRemoteObject implements ChatService
 
     @Override
     public void unregisterChatListener(String gameId, String playerName) throws RemoteException {
-        Map<String, ChatListener> gameListeners = listeners.get(gameId);
+        Map<String, ListenerOutbox<ChatMessage>> gameListeners = listeners.get(gameId);
 
         if (gameListeners != null) {
-            gameListeners.remove(playerName);
+            ListenerOutbox<ChatMessage> outbox = gameListeners.remove(playerName);
+            if (outbox != null) {
+                outbox.close();
+            }
             System.out.println("[ChatService] Deregistriran listener: " + playerName);
 
             // Pošalji goodbye poruku
@@ -105,39 +159,43 @@ public class ChatServiceImpl extends UnicastRemoteObject implements ChatService
         }
     }
 
-    // obavjestava sve o novoj poruci
+    // obavjestava sve o novoj poruci - samo stavlja poruku u red svakog listenera, ne čeka remote pozive
     private void notifyListeners(String gameId, ChatMessage message) {
-        Map<String, ChatListener> gameListeners = listeners.get(gameId);
+        Map<String, ListenerOutbox<ChatMessage>> gameListeners = listeners.get(gameId);
 
         if (gameListeners == null) {
             return;
         }
 
-        List<String> toRemove = new ArrayList<>();
-
-        for (Map.Entry<String, ChatListener> entry : gameListeners.entrySet()) {
-            try {
-                entry.getValue().onMessageReceived(message);
-            } catch (RemoteException e) {
-                System.err.println("[ChatService] Listener nedostupan: " + entry.getKey());
-                toRemove.add(entry.getKey());
-            }
+        for (ListenerOutbox<ChatMessage> outbox : gameListeners.values()) {
+            outbox.offer(message);
         }
-        toRemove.forEach(gameListeners::remove);
     }
 
     // cleanup za stari chat
     public void cleanupOldChats() {
         chatHistory.entrySet().removeIf(entry -> {
-            List<ChatMessage> messages = entry.getValue();
-            if (messages.isEmpty()) {
-                return true;
+            ChatMessage lastMessage = entry.getValue().last();
+            // Ukloni chat ako nema poruka ili je posljednja poruka starija od 2 sata
+            boolean old = lastMessage == null || java.time.Duration.between(lastMessage.getTimestamp(),
+                    LocalDateTime.now()).toHours() > 2;
+            if (old && journal != null) {
+                journal.chatDrop(entry.getKey());
             }
+            return old;
+        });
+    }
 
-            // Ukloni chat ako je posljednja poruka starija od 2 sata
-            ChatMessage lastMessage = messages.get(messages.size() - 1);
-            return java.time.Duration.between(lastMessage.getTimestamp(),
-                    LocalDateTime.now()).toHours() > 2;
+    void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Vraća history iz journala prije nego se servis registrira
+    void restore(Journal.State state) {
+        state.chats.forEach((gameId, chat) -> {
+            ChatHistory history = new ChatHistory(MAX_MESSAGES_PER_GAME);
+            history.restore(chat.firstSequence(), chat.messages);
+            chatHistory.put(gameId, history);
         });
     }
 
@@ -145,13 +203,17 @@ public class ChatServiceImpl extends UnicastRemoteObject implements ChatService
     // stats za test
     public String getStatistics() {
         int totalMessages = chatHistory.values().stream()
-                .mapToInt(List::size)
+                .mapToInt(ChatHistory::size)
                 .sum();
         int totalListeners = listeners.values().stream()
                 .mapToInt(Map::size)
                 .sum();
+        int queued = listeners.values().stream()
+                .flatMap(m -> m.values().stream())
+                .mapToInt(ListenerOutbox::getQueueDepth)
+                .sum();
 
-        return String.format("Aktivnih chatova: %d, Ukupno poruka: %d, Aktivnih listenera: %d",
-                chatHistory.size(), totalMessages, totalListeners);
+        return String.format("Aktivnih chatova: %d, Ukupno poruka: %d, Aktivnih listenera: %d, U redu za slanje: %d",
+                chatHistory.size(), totalMessages, totalListeners, queued);
     }
 }
\ No newline at end of file
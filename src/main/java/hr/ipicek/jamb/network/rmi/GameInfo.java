@@ -3,6 +3,7 @@ package hr.ipicek.jamb.network.rmi;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 
 // Informacije koje se vide u lobbyu
@@ -20,6 +21,11 @@ public class GameInfo implements Serializable {
     private final LocalDateTime createdAt;
     private final GameStatus status;
 
+    // Redoslijed u lobbyu: najnovije prvo, gameId razlikuje igre kreirane u istom trenutku
+    public static final Comparator<GameInfo> NEWEST_FIRST = Comparator.comparing(GameInfo::getCreatedAt)
+            .reversed()
+            .thenComparing(GameInfo::getGameId);
+
     public enum GameStatus {
         WAITING,    // Čeka igrače
         FULL,       // Puna
@@ -29,6 +35,12 @@ public class GameInfo implements Serializable {
 
     public GameInfo(String gameId, String hostName, String serverAddress,
                     int serverPort, int currentPlayers, int maxPlayers, GameStatus status) {
+        this(gameId, hostName, serverAddress, serverPort, currentPlayers, maxPlayers, status, LocalDateTime.now());
+    }
+
+    // Za oporavak iz journala - zadržava originalno vrijeme kreiranja
+    GameInfo(String gameId, String hostName, String serverAddress, int serverPort,
+             int currentPlayers, int maxPlayers, GameStatus status, LocalDateTime createdAt) {
         this.gameId = gameId;
         this.hostName = hostName;
         this.serverAddress = serverAddress;
@@ -36,7 +48,7 @@ public class GameInfo implements Serializable {
         this.currentPlayers = currentPlayers;
         this.maxPlayers = maxPlayers;
         this.status = status;
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = createdAt;
     }
 
     public String getGameId() {
@@ -69,6 +81,10 @@ public class GameInfo implements Serializable {
         return currentPlayers >= maxPlayers || status == GameStatus.FULL;
     }
 
+    public int getFreeSeats() {
+        return Math.max(0, maxPlayers - currentPlayers);
+    }
+
     public boolean isJoinable() {
         return status == GameStatus.WAITING && !isFull();
     }
@@ -0,0 +1,18 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+
+// Jedna stranica rezultata LobbyService.findGames
+public record GamePage(List<GameInfo> games, boolean hasMore) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Kursor za GameQuery.next - null ako je stranica prazna
+    public GameInfo nextCursor() {
+        return games.isEmpty() ? null : games.get(games.size() - 1);
+    }
+}
@@ -0,0 +1,44 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+
+// Filter i stranica za LobbyService.findGames. Stranice idu po kursoru (zadnja igra prethodne stranice),
+// pa sljedeća stranica ne ovisi o tome koliko je igara u međuvremenu dodano ili uklonjeno.
+//   status      - samo igre s tim statusom (null = svi)
+//   joinableOnly - samo igre kojima se može pridružiti
+//   hostPrefix  - ime hosta počinje s (bez obzira na velika/mala slova, null = svi)
+//   minFreeSeats - barem toliko slobodnih mjesta
+//   after       - kursor, null za prvu stranicu
+public record GameQuery(GameInfo.GameStatus status, boolean joinableOnly, String hostPrefix,
+                        int minFreeSeats, GameInfo after, int limit) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static GameQuery joinable(int limit) {
+        return new GameQuery(null, true, null, 0, null, limit);
+    }
+
+    public static GameQuery all(int limit) {
+        return new GameQuery(null, false, null, 0, null, limit);
+    }
+
+    public GameQuery withStatus(GameInfo.GameStatus status) {
+        return new GameQuery(status, joinableOnly, hostPrefix, minFreeSeats, after, limit);
+    }
+
+    public GameQuery withHostPrefix(String hostPrefix) {
+        return new GameQuery(status, joinableOnly, hostPrefix, minFreeSeats, after, limit);
+    }
+
+    public GameQuery withMinFreeSeats(int minFreeSeats) {
+        return new GameQuery(status, joinableOnly, hostPrefix, minFreeSeats, after, limit);
+    }
+
+    // Sljedeća stranica istog upita
+    public GameQuery next(GamePage page) {
+        return new GameQuery(status, joinableOnly, hostPrefix, minFreeSeats, page.nextCursor(), limit);
+    }
+}
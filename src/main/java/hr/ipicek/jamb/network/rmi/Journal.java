@@ -0,0 +1,534 @@
+package hr.ipicek.jamb.network.rmi;
+
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+
+ // Append-only journal promjena lobbyja i chata, zapisuje se kroz memory-mapped regiju datoteke.
+ // Zapis: [int duljina][int CRC32][tip + podaci]. Kraj je prvi zapis duljine 0 (ostatak mapirane regije)
+ // ili s krivim CRC-om (prekinuto pisanje) - sve iza se pri otvaranju obriše.
+ // Sažimanje piše trenutno stanje u novu generaciju datoteke (<ime>.<gen>), pa nema preimenovanja
+ // mapirane datoteke; generacija vrijedi tek kad joj je na kraju upisan MAGIC u zaglavlje.
+final class Journal implements Closeable {
+
+    private static final int MAGIC = 0x4A414D42; // "JAMB"
+    private static final int HEADER_SIZE = 8;    // MAGIC + rezervirano
+    private static final int RECORD_HEADER = 8;  // duljina + CRC
+
+    private static final byte GAME_PUT = 1;
+    private static final byte GAME_REMOVE = 2;
+    private static final byte LOBBY_VERSION = 3;
+    private static final byte CHAT_APPEND = 4;
+    private static final byte CHAT_CLEAR = 5;
+    private static final byte CHAT_DROP = 6;
+
+    // Stanje svedeno iz zapisa - koristi se i za oporavak i za sažimanje
+    static final class State {
+        final Map<String, GameInfo> games = new LinkedHashMap<>();
+        long lobbyVersion;
+        final Map<String, ChatState> chats = new LinkedHashMap<>();
+    }
+
+    // firstSequence je redni broj prve poruke u messages (ili sljedeće ako je prazno)
+    static final class ChatState {
+        final Deque<ChatMessage> messages = new ArrayDeque<>();
+        long nextSequence = 1;
+
+        long firstSequence() {
+            return nextSequence - messages.size();
+        }
+    }
+
+    private final Path base;
+    private final State recovered;
+    private long generation;
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private long position;
+    private long compactedAt;
+    private boolean closed;
+
+    private Journal(Path base, long generation, State recovered) {
+        this.base = base.toAbsolutePath();
+        this.generation = generation;
+        this.recovered = recovered;
+        this.file = fileFor(generation);
+    }
+
+    // Otvara zadnju ispravnu generaciju i čita stanje iz nje, ili kreira novi journal
+    static Journal open(Path base) throws IOException {
+        Journal journal = new Journal(base, -1, new State());
+        List<Long> generations = journal.listGenerations();
+
+        for (long gen : generations) {
+            Path candidate = journal.fileFor(gen);
+            if (!hasMagic(candidate)) continue;
+
+            Journal found = new Journal(base, gen, new State());
+            long end = found.read(candidate, Long.MAX_VALUE, found.recovered);
+            found.openForAppend(end);
+            found.deleteOtherGenerations(generations);
+            System.out.println("[Journal] Oporavljeno iz " + candidate.getFileName() + ": " +
+                    found.recovered.games.size() + " igara, " + found.recovered.chats.size() + " chatova");
+            return found;
+        }
+
+        journal.generation = 0;
+        journal.file = journal.fileFor(0);
+        journal.deleteOtherGenerations(generations);
+        try (FileChannel out = FileChannel.open(journal.file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+        }
+        journal.openForAppend(HEADER_SIZE);
+        System.out.println("[Journal] Kreiran novi journal: " + journal.file);
+        return journal;
+    }
+
+    // Stanje pročitano pri otvaranju
+    State recovered() {
+        return recovered;
+    }
+
+    void gamePut(long version, GameInfo game) {
+        append(encode(GAME_PUT, out -> {
+            out.writeLong(version);
+            writeGame(out, game);
+        }));
+    }
+
+    void gameRemove(long version, String gameId) {
+        append(encode(GAME_REMOVE, out -> {
+            out.writeLong(version);
+            out.writeUTF(gameId);
+        }));
+    }
+
+    void chatAppend(String gameId, ChatMessage message) {
+        append(encode(CHAT_APPEND, out -> {
+            out.writeUTF(gameId);
+            writeMessage(out, message);
+        }));
+    }
+
+    // Brisanje poruka - redni brojevi se nastavljaju od nextSequence
+    void chatClear(String gameId, long nextSequence) {
+        append(encode(CHAT_CLEAR, out -> {
+            out.writeUTF(gameId);
+            out.writeLong(nextSequence);
+        }));
+    }
+
+    void chatDrop(String gameId) {
+        append(encode(CHAT_DROP, out -> out.writeUTF(gameId)));
+    }
+
+    synchronized void force() {
+        if (!closed && map != null) {
+            map.force();
+        }
+    }
+
+    synchronized boolean needsCompaction() {
+        return !closed && position - compactedAt > NetworkConstants.JOURNAL_COMPACT_BYTES;
+    }
+
+    // Zapisi do trenutne pozicije se čitaju i svode bez locka (ne mijenjaju se), a pod lockom se
+    // samo prepiše ono što je dodano u međuvremenu i prebaci na novu generaciju
+    void compact() throws IOException {
+        long end;
+        Path current;
+        synchronized (this) {
+            if (closed) return;
+            end = position;
+            current = file;
+        }
+
+        State state = new State();
+        read(current, end, state);
+
+        Path next = fileFor(generation + 1);
+        FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            out.write(ByteBuffer.allocate(HEADER_SIZE), 0);
+            out.position(HEADER_SIZE);
+            writeState(out, state);
+
+            synchronized (this) {
+                if (closed) return;
+                long tail = position - end;
+                long copied = 0;
+                while (copied < tail) {
+                    copied += channel.transferTo(end + copied, tail - copied, out);
+                }
+                out.force(true);
+                writeHeader(out);
+                out.force(true);
+                long size = out.position();
+                out.close();
+
+                closeChannel();
+                generation++;
+                file = next;
+                openForAppend(size);
+                compactedAt = position;
+            }
+        } finally {
+            if (out.isOpen()) {
+                out.close();
+            }
+        }
+
+        try {
+            Files.deleteIfExists(current);
+        } catch (IOException e) {
+            // Na nekim sustavima mapirana datoteka se ne može obrisati - obriše se pri sljedećem pokretanju
+        }
+        System.out.println("[Journal] Sažet u " + file.getFileName() + " (" + position + " B)");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        closeChannel();
+    }
+
+    private synchronized void append(byte[] record) {
+        if (closed) return;
+        try {
+            int needed = RECORD_HEADER + record.length;
+            if (map == null || map.remaining() < needed) {
+                remap(needed);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            map.putInt(record.length);
+            map.putInt((int) crc.getValue());
+            map.put(record);
+            position += needed;
+        } catch (IOException e) {
+            System.err.println("[Journal] Greška pri zapisivanju: " + e.getMessage());
+        }
+    }
+
+    // Nova regija počinje točno na poziciji pisanja, pa između regija nema praznina
+    private void remap(int needed) throws IOException {
+        if (map != null) {
+            map.force();
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                Math.max(NetworkConstants.JOURNAL_MAP_SIZE, needed));
+    }
+
+    private void openForAppend(long end) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Ostatak iza zadnjeg ispravnog zapisa (prekinuto pisanje, stara regija) se nulira,
+        // da se stari zapisi ne bi pročitali iza novih
+        // (piše se samo tamo gdje nešto ima - rep je obično već nula, a čitanje je jeftinije od pisanja)
+        long size = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer zeros = ByteBuffer.allocate(chunk.capacity());
+        for (long pos = end; pos < size; pos += chunk.capacity()) {
+            int length = (int) Math.min(chunk.capacity(), size - pos);
+            chunk.clear().limit(length);
+            channel.read(chunk, pos);
+            if (!isZero(chunk.flip())) {
+                zeros.clear().limit(length);
+                channel.write(zeros, pos);
+            }
+        }
+        position = end;
+        map = null;
+    }
+
+    private static boolean isZero(ByteBuffer buffer) {
+        while (buffer.remaining() >= Long.BYTES) {
+            if (buffer.getLong() != 0) return false;
+        }
+        while (buffer.hasRemaining()) {
+            if (buffer.get() != 0) return false;
+        }
+        return true;
+    }
+
+    private void closeChannel() {
+        try {
+            if (map != null) {
+                map.force();
+            }
+            map = null;
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("[Journal] Greška pri zatvaranju: " + e.getMessage());
+        }
+    }
+
+    // Čita zapise do limit ili do prvog neispravnog, @return pozicija iza zadnjeg ispravnog zapisa
+    private long read(Path source, long limit, State state) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = Math.min(in.size(), limit);
+            if (size <= HEADER_SIZE) return HEADER_SIZE;
+
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            while (data.remaining() >= RECORD_HEADER) {
+                int start = data.position();
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    return start;
+                }
+                byte[] record = new byte[length];
+                data.get(record);
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    System.err.println("[Journal] Neispravan zapis na poziciji " + start + " - ostatak se odbacuje");
+                    return start;
+                }
+                // Zapis s ispravnim CRC-om, ali nečitljivim sadržajem se odbacuje kao i pokvaren
+                try {
+                    apply(state, record);
+                } catch (IOException e) {
+                    System.err.println("[Journal] Nečitljiv zapis na poziciji " + start + " (" + e.getMessage() +
+                            ") - ostatak se odbacuje");
+                    return start;
+                }
+            }
+            return data.position();
+        }
+    }
+
+    // Sva polja se pročitaju prije promjene stanja - nečitljiv zapis ne ostavlja stanje napola primijenjeno
+    private static void apply(State state, byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        switch (in.readByte()) {
+            case GAME_PUT -> {
+                long version = in.readLong();
+                GameInfo game = readGame(in);
+                state.lobbyVersion = Math.max(state.lobbyVersion, version);
+                state.games.put(game.getGameId(), game);
+            }
+            case GAME_REMOVE -> {
+                long version = in.readLong();
+                String gameId = in.readUTF();
+                state.lobbyVersion = Math.max(state.lobbyVersion, version);
+                state.games.remove(gameId);
+            }
+            case LOBBY_VERSION -> state.lobbyVersion = Math.max(state.lobbyVersion, in.readLong());
+            case CHAT_APPEND -> {
+                String gameId = in.readUTF();
+                ChatMessage message = readMessage(in);
+                ChatState chat = state.chats.computeIfAbsent(gameId, k -> new ChatState());
+                // Poruka koja je već u sažetom stanju (zapisana tijekom sažimanja) se preskače
+                if (message.getSequence() < chat.nextSequence) return;
+                chat.messages.addLast(message);
+                chat.nextSequence = message.getSequence() + 1;
+                if (chat.messages.size() > ChatServiceImpl.MAX_MESSAGES_PER_GAME) {
+                    chat.messages.removeFirst();
+                }
+            }
+            case CHAT_CLEAR -> {
+                String gameId = in.readUTF();
+                long nextSequence = in.readLong();
+                ChatState chat = state.chats.computeIfAbsent(gameId, k -> new ChatState());
+                chat.messages.clear();
+                chat.nextSequence = Math.max(chat.nextSequence, nextSequence);
+            }
+            case CHAT_DROP -> state.chats.remove(in.readUTF());
+            default -> throw new IOException("Nepoznat tip zapisa u journalu");
+        }
+    }
+
+    private static void writeState(FileChannel out, State state) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long version = state.lobbyVersion;
+        records.add(encode(LOBBY_VERSION, o -> o.writeLong(version)));
+        for (GameInfo game : state.games.values()) {
+            records.add(encode(GAME_PUT, o -> {
+                o.writeLong(version);
+                writeGame(o, game);
+            }));
+        }
+        state.chats.forEach((gameId, chat) -> {
+            records.add(encode(CHAT_CLEAR, o -> {
+                o.writeUTF(gameId);
+                o.writeLong(chat.firstSequence());
+            }));
+            for (ChatMessage message : chat.messages) {
+                records.add(encode(CHAT_APPEND, o -> {
+                    o.writeUTF(gameId);
+                    writeMessage(o, message);
+                }));
+            }
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        CRC32 crc = new CRC32();
+        for (byte[] record : records) {
+            if (buffer.remaining() < RECORD_HEADER + record.length) {
+                flush(out, buffer);
+                if (buffer.capacity() < RECORD_HEADER + record.length) {
+                    buffer = ByteBuffer.allocate(RECORD_HEADER + record.length);
+                }
+            }
+            crc.reset();
+            crc.update(record);
+            buffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+        }
+        flush(out, buffer);
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(0);
+        header.flip();
+        out.write(header, 0);
+    }
+
+    private static boolean hasMagic(Path candidate) {
+        try (FileChannel in = FileChannel.open(candidate, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            return in.read(header, 0) == HEADER_SIZE && header.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, Writer writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            writer.write(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream ne baca
+        }
+    }
+
+    private static void writeGame(DataOutputStream out, GameInfo game) throws IOException {
+        out.writeUTF(game.getGameId());
+        out.writeUTF(game.getHostName());
+        out.writeUTF(game.getServerAddress());
+        out.writeInt(game.getServerPort());
+        out.writeInt(game.getCurrentPlayers());
+        out.writeInt(game.getMaxPlayers());
+        out.writeByte(game.getStatus().ordinal());
+        writeTime(out, game.getCreatedAt());
+    }
+
+    private static GameInfo readGame(DataInputStream in) throws IOException {
+        return new GameInfo(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readInt(), in.readInt(),
+                readEnum(in, GameInfo.GameStatus.values()), readTime(in));
+    }
+
+    private static void writeMessage(DataOutputStream out, ChatMessage message) throws IOException {
+        out.writeUTF(message.getSender());
+        out.writeUTF(message.getMessage());
+        out.writeByte(message.getType().ordinal());
+        writeTime(out, message.getTimestamp());
+        out.writeLong(message.getSequence());
+    }
+
+    private static ChatMessage readMessage(DataInputStream in) throws IOException {
+        return new ChatMessage(in.readUTF(), in.readUTF(), readEnum(in, ChatMessage.MessageType.values()),
+                readTime(in), in.readLong());
+    }
+
+    // Ordinal izvan raspona (npr. zapis novije verzije) je nečitljiv zapis, ne AIOOBE
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Nepoznata vrijednost " + ordinal + " za " +
+                    values[0].getDeclaringClass().getSimpleName());
+        }
+        return values[ordinal];
+    }
+
+    // Sekunde + nanosekunde umjesto teksta - parsiranje teksta je najsporiji dio oporavka
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        try {
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new IOException("Neispravno vrijeme u zapisu: " + e.getMessage(), e);
+        }
+    }
+
+    private Path fileFor(long gen) {
+        return base.resolveSibling(base.getFileName() + "." + gen);
+    }
+
+    // Generacije od najnovije prema starijoj
+    private List<Long> listGenerations() throws IOException {
+        Path dir = base.getParent();
+        String prefix = base.getFileName() + ".";
+        List<Long> generations = new ArrayList<>();
+        if (dir == null || !Files.isDirectory(dir)) return generations;
+
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+"))
+                    .forEach(name -> generations.add(Long.parseLong(name.substring(prefix.length()))));
+        }
+        generations.sort((a, b) -> Long.compare(b, a));
+        return generations;
+    }
+
+    private void deleteOtherGenerations(List<Long> generations) {
+        for (long gen : generations) {
+            if (gen == generation) continue;
+            try {
+                Files.deleteIfExists(fileFor(gen));
+            } catch (IOException e) {
+                System.err.println("[Journal] Ne mogu obrisati staru generaciju " + gen + ": " + e.getMessage());
+            }
+        }
+    }
+}
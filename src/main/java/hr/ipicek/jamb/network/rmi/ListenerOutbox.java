@@ -0,0 +1,142 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+ // Odlazni red jednog remote listenera (chat poruke, lobby događaji). offer samo doda element u red, a remote
+ // poziv radi dispatcher (najviše jedan task po listeneru, pa elementi stižu redom) - spori ili mrtav klijent čeka sam.
+ // Sve što se skupilo dok je prethodni poziv trajao ide u jednom pozivu (do maxBatch).
+ // Kad je red pun odbacuju se najstariji - klijent rupu u rednim brojevima nadoknadi sam.
+ // Circuit breaker: nakon neuspjelog poziva listener se ne zove retryDelayMs * broj grešaka,
+ // a nakon maxFailures grešaka zaredom se izbacuje (onEvict).
+final class ListenerOutbox<T> {
+
+    // Veličina reda, batcha i postavke breakera
+    record Policy(int capacity, int maxBatch, int maxFailures, long retryDelayMs) {}
+
+    // Jedan remote poziv za batch (redom kako su dodani)
+    @FunctionalInterface
+    interface Delivery<T> {
+        void deliver(List<T> batch) throws RemoteException;
+    }
+
+    private final String service;
+    private final String name;
+    private final Policy policy;
+    private final Executor dispatcher;
+    private final Delivery<T> delivery;
+    private final Consumer<ListenerOutbox<T>> onEvict;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile boolean overflowing;
+
+    // Dira samo task koji trenutno prazni red (predaja preko draining flaga)
+    private List<T> retry;
+    private int failures;
+
+    // service je prefiks za log ("ChatService"), name ime listenera
+    ListenerOutbox(String service, String name, Policy policy, Executor dispatcher, Delivery<T> delivery,
+                   Consumer<ListenerOutbox<T>> onEvict) {
+        this.service = service;
+        this.name = name;
+        this.policy = policy;
+        this.dispatcher = dispatcher;
+        this.delivery = delivery;
+        this.onEvict = onEvict;
+    }
+
+    void offer(T item) {
+        if (closed) return;
+        queue.add(item);
+        if (size.incrementAndGet() > policy.capacity()) {
+            if (queue.poll() != null) size.decrementAndGet();
+            if (!overflowing) {
+                overflowing = true;
+                System.err.println("[" + service + "] Listener " + name + " ne stiže primati - odbacujem najstarije");
+            }
+        }
+        schedule();
+    }
+
+    void close() {
+        closed = true;
+        queue.clear();
+        size.set(0);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getQueueDepth() {
+        return size.get();
+    }
+
+    private void schedule() {
+        if (!closed && draining.compareAndSet(false, true)) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (!closed) {
+            List<T> batch = retry != null ? retry : nextBatch();
+            retry = null;
+            if (batch.isEmpty()) {
+                draining.set(false);
+                // Element je mogao stići između zadnjeg polla i reseta flaga
+                if (size.get() > 0) schedule();
+                return;
+            }
+
+            if (!deliver(batch)) {
+                if (++failures >= policy.maxFailures()) {
+                    System.err.println("[" + service + "] Listener nedostupan: " + name);
+                    close();
+                    onEvict.accept(this);
+                    return;
+                }
+                // Breaker otvoren - isti batch se ponovno šalje nakon pauze, draining ostaje postavljen
+                retry = batch;
+                CompletableFuture.delayedExecutor(policy.retryDelayMs() * failures,
+                        TimeUnit.MILLISECONDS, dispatcher).execute(this::drain);
+                return;
+            }
+            failures = 0;
+            overflowing = false;
+        }
+    }
+
+    private List<T> nextBatch() {
+        List<T> batch = new ArrayList<>();
+        T item;
+        while (batch.size() < policy.maxBatch() && (item = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(item);
+        }
+        return batch;
+    }
+
+    private boolean deliver(List<T> batch) {
+        try {
+            delivery.deliver(batch);
+            return true;
+        } catch (RemoteException | RuntimeException e) {
+            System.err.println("[" + service + "] Greška pri slanju listeneru " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
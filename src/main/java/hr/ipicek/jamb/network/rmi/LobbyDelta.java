@@ -0,0 +1,46 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+
+// Odgovor na getAvailableGamesSince: događaji nakon tražene verzije ili,
+// ako ih server više nema, cijela lista igara (snapshot) na trenutnoj verziji
+public class LobbyDelta implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final List<LobbyEvent> events;
+    private final List<GameInfo> snapshot;
+
+    private LobbyDelta(long version, List<LobbyEvent> events, List<GameInfo> snapshot) {
+        this.version = version;
+        this.events = events;
+        this.snapshot = snapshot;
+    }
+
+    public static LobbyDelta events(long version, List<LobbyEvent> events) {
+        return new LobbyDelta(version, List.copyOf(events), null);
+    }
+
+    public static LobbyDelta snapshot(long version, List<GameInfo> games) {
+        return new LobbyDelta(version, List.of(), List.copyOf(games));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+    public List<LobbyEvent> getEvents() {
+        return events;
+    }
+    // null ako je odgovor delta
+    public List<GameInfo> getSnapshot() {
+        return snapshot;
+    }
+    public boolean isSnapshot() {
+        return snapshot != null;
+    }
+}
@@ -0,0 +1,49 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+
+// Jedna promjena u lobbyu - verzija raste za 1 sa svakom promjenom, pa klijent vidi ako mu je nešto promaklo
+public class LobbyEvent implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final Type type;
+    private final String gameId;
+    private final GameInfo game;
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    // game je null za REMOVED
+    public LobbyEvent(long version, Type type, String gameId, GameInfo game) {
+        this.version = version;
+        this.type = type;
+        this.gameId = gameId;
+        this.game = game;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+    public Type getType() {
+        return type;
+    }
+    public String getGameId() {
+        return gameId;
+    }
+    public GameInfo getGame() {
+        return game;
+    }
+
+    @Override
+    public String toString() {
+        return "LobbyEvent{v" + version + " " + type + " " + gameId + "}";
+    }
+}
@@ -0,0 +1,20 @@
+package hr.ipicek.jamb.network.rmi;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+
+// callback interface za promjene u lobbyu, implementira se u clientu i registrira u lobby service
+public interface LobbyListener extends Remote {
+
+// poziva se za svaku dodanu, promijenjenu ili uklonjenu igru, redom po verziji
+void onLobbyEvent(LobbyEvent event) throws RemoteException;
+
+// više događaja koji su se skupili za ovog listenera, u jednom remote pozivu (redom po verziji)
+default void onLobbyEvents(List<LobbyEvent> events) throws RemoteException {
+    for (LobbyEvent event : events) {
+        onLobbyEvent(event);
+    }
+}
+}
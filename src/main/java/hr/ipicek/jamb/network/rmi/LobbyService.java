@@ -9,10 +9,18 @@ public interface LobbyService extends Remote {
 
     void registerGame(GameInfo gameInfo) throws RemoteException;
     List<GameInfo> getAvailableGames() throws RemoteException;
+    // stranica igara po filteru, najnovije prvo; sljedeća stranica s query.next(page)
+    GamePage findGames(GameQuery query) throws RemoteException;
     GameInfo getGameInfo(String gameId) throws RemoteException;
     boolean joinGame(String gameId, String playerName) throws RemoteException;
     void updateGameStatus(String gameId, int currentPlayers, GameInfo.GameStatus status)
             throws RemoteException;
     void removeGame(String gameId) throws RemoteException;
     boolean ping() throws RemoteException;
+
+    // push umjesto pollanja - vraća trenutnu listu i verziju, listener dalje dobiva samo promjene
+    LobbyDelta registerLobbyListener(String clientId, LobbyListener listener) throws RemoteException;
+    void unregisterLobbyListener(String clientId) throws RemoteException;
+    // promjene nakon verzije (za klijenta kojem je promaknuo događaj), ili cijela lista ako su prestare
+    LobbyDelta getAvailableGamesSince(long version) throws RemoteException;
 }
\ No newline at end of file
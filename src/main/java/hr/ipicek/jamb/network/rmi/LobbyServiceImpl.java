@@ -1,12 +1,25 @@
 package hr.ipicek.jamb.network.rmi;
 
+import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
+
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.Comparator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 
@@ -17,10 +30,48 @@ public class LobbyServiceImpl extends UnicastRemoteObject implements LobbyServic
 
     // Thread-safe mapa igara
     private final Map<String, GameInfo> games;
+    private final Map<String, ListenerOutbox<LobbyEvent>> listeners;
+
+    // Propuštene (odbačene) događaje klijent nadoknadi preko getAvailableGamesSince
+    private static final ListenerOutbox.Policy OUTBOX_POLICY = new ListenerOutbox.Policy(
+            NetworkConstants.LOBBY_OUTBOX_CAPACITY, NetworkConstants.LOBBY_MAX_BATCH,
+            NetworkConstants.LOBBY_LISTENER_MAX_FAILURES, NetworkConstants.LOBBY_RETRY_DELAY_MS);
+
+    // Sekundarni indeksi (GameInfo.NEWEST_FIRST) i brojači - mijenjaju se samo pod lockom zajedno s mapom,
+    // a čitaju bez locka, pa lista i statistika ne prolaze kroz sve igre
+    private final NavigableSet<GameInfo> allGames = new ConcurrentSkipListSet<>(GameInfo.NEWEST_FIRST);
+    private final NavigableSet<GameInfo> joinableGames = new ConcurrentSkipListSet<>(GameInfo.NEWEST_FIRST);
+    private final Map<GameInfo.GameStatus, NavigableSet<GameInfo>> gamesByStatus = new EnumMap<>(GameInfo.GameStatus.class);
+    // Veličina skip-liste je O(n), pa se brojevi drže posebno
+    private final Map<GameInfo.GameStatus, AtomicInteger> statusCounts = new EnumMap<>(GameInfo.GameStatus.class);
+    private final AtomicInteger joinableCount = new AtomicInteger();
+
+    // Promjene igara, verzija i log događaja mijenjaju se zajedno pod ovim lockom
+    private final Object lock = new Object();
+    private final Deque<LobbyEvent> eventLog = new ArrayDeque<>();
+    private long version;
+
+    // Postavlja RMIRegistryServer ako je journal uključen - promjene se zapisuju u publish, pod lockom
+    private volatile Journal journal;
+
+    // Remote pozive listenerima radi dispatcher - svaki listener ima svoj red (ListenerOutbox),
+    // pa spori ili mrtav klijent ne zadržava ostale ni registerGame/updateGameStatus
+    private final ExecutorService dispatcher = ThreadUtils.VIRTUAL_THREADS
+            ? ThreadUtils.newVirtualThreadPerTaskExecutor("LobbyDispatch-")
+            : Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "LobbyDispatch");
+                t.setDaemon(true);
+                return t;
+            });
 
     public LobbyServiceImpl() throws RemoteException {
         super();
         this.games = new ConcurrentHashMap<>();
+        this.listeners = new ConcurrentHashMap<>();
+        for (GameInfo.GameStatus status : GameInfo.GameStatus.values()) {
+            gamesByStatus.put(status, new ConcurrentSkipListSet<>(GameInfo.NEWEST_FIRST));
+            statusCounts.put(status, new AtomicInteger());
+        }
         System.out.println("[LobbyService] Servis pokrenut");
     }
 
@@ -30,17 +81,57 @@ public class LobbyServiceImpl extends UnicastRemoteObject implements LobbyServic
             throw new IllegalArgumentException("GameInfo ne može biti null");
         }
 
-        games.put(gameInfo.getGameId(), gameInfo);
+        synchronized (lock) {
+            LobbyEvent.Type type = put(gameInfo) == null ?
+                    LobbyEvent.Type.ADDED : LobbyEvent.Type.UPDATED;
+            publish(type, gameInfo.getGameId(), gameInfo);
+        }
         System.out.println("[LobbyService] Registrirana nova igra: " + gameInfo);
     }
 
     @Override
     public List<GameInfo> getAvailableGames() throws RemoteException {
-        // Vrati samo igre koje su joinable
-        return games.values().stream()
-                .filter(GameInfo::isJoinable)
-                .sorted(Comparator.comparing(GameInfo::getCreatedAt).reversed())
-                .collect(Collectors.toList());
+        // Vrati samo igre koje su joinable - indeks je već sortiran
+        return new ArrayList<>(joinableGames);
+    }
+
+    @Override
+    public GamePage findGames(GameQuery query) throws RemoteException {
+        if (query == null) {
+            throw new IllegalArgumentException("Upit ne može biti null");
+        }
+        int limit = Math.min(Math.max(query.limit(), 1), NetworkConstants.LOBBY_MAX_PAGE_SIZE);
+
+        // Najuži indeks za upit; joinable su uvijek WAITING pa drugi status znači praznu stranicu
+        NavigableSet<GameInfo> index;
+        if (query.joinableOnly()) {
+            if (query.status() != null && query.status() != GameInfo.GameStatus.WAITING) {
+                return new GamePage(List.of(), false);
+            }
+            index = joinableGames;
+        } else if (query.status() != null) {
+            index = gamesByStatus.get(query.status());
+        } else {
+            index = allGames;
+        }
+        if (query.after() != null) {
+            index = index.tailSet(query.after(), false);
+        }
+
+        // Host prefix i slobodna mjesta se filtriraju tijekom prolaza - za uobičajene upite to je
+        // O(veličina stranice), a rijedak prefix može proći veći dio indeksa
+        String prefix = query.hostPrefix() == null || query.hostPrefix().isEmpty() ?
+                null : query.hostPrefix().toLowerCase(Locale.ROOT);
+        List<GameInfo> page = new ArrayList<>(limit);
+        for (GameInfo game : index) {
+            if (prefix != null && !game.getHostName().toLowerCase(Locale.ROOT).startsWith(prefix)) continue;
+            if (game.getFreeSeats() < query.minFreeSeats()) continue;
+            if (page.size() == limit) {
+                return new GamePage(page, true);
+            }
+            page.add(game);
+        }
+        return new GamePage(page, false);
     }
 
     @Override
@@ -71,36 +162,48 @@ public class LobbyServiceImpl extends UnicastRemoteObject implements LobbyServic
     @Override
     public void updateGameStatus(String gameId, int currentPlayers, GameInfo.GameStatus status)
             throws RemoteException {
-        GameInfo oldInfo = games.get(gameId);
-
-        if (oldInfo == null) {
-            System.out.println("[LobbyService] Pokušaj ažuriranja nepostojeće igre: " + gameId);
+        // Završena igra se samo ukloni - klijenti dobiju jedan REMOVED umjesto UPDATED + REMOVED
+        if (status == GameInfo.GameStatus.FINISHED) {
+            removeGame(gameId);
             return;
         }
 
-        // Kreiraj novi GameInfo sa ažuriranim podacima
-        GameInfo newInfo = new GameInfo(
-                oldInfo.getGameId(),
-                oldInfo.getHostName(),
-                oldInfo.getServerAddress(),
-                oldInfo.getServerPort(),
-                currentPlayers,
-                oldInfo.getMaxPlayers(),
-                status
-        );
+        synchronized (lock) {
+            GameInfo oldInfo = games.get(gameId);
 
-        games.put(gameId, newInfo);
-        System.out.println("[LobbyService] Ažurirana igra: " + newInfo);
+            if (oldInfo == null) {
+                System.out.println("[LobbyService] Pokušaj ažuriranja nepostojeće igre: " + gameId);
+                return;
+            }
 
-        // Ukloni igru ako je završena
-        if (status == GameInfo.GameStatus.FINISHED) {
-            removeGame(gameId);
+            // Kreiraj novi GameInfo sa ažuriranim podacima - vrijeme kreiranja ostaje isto
+            // (po njemu su sortirani indeksi i cleanupOldGames mjeri starost)
+            GameInfo newInfo = new GameInfo(
+                    oldInfo.getGameId(),
+                    oldInfo.getHostName(),
+                    oldInfo.getServerAddress(),
+                    oldInfo.getServerPort(),
+                    currentPlayers,
+                    oldInfo.getMaxPlayers(),
+                    status,
+                    oldInfo.getCreatedAt()
+            );
+
+            put(newInfo);
+            publish(LobbyEvent.Type.UPDATED, gameId, newInfo);
+            System.out.println("[LobbyService] Ažurirana igra: " + newInfo);
         }
     }
 
     @Override
     public void removeGame(String gameId) throws RemoteException {
-        GameInfo removed = games.remove(gameId);
+        GameInfo removed;
+        synchronized (lock) {
+            removed = remove(gameId);
+            if (removed != null) {
+                publish(LobbyEvent.Type.REMOVED, gameId, null);
+            }
+        }
         if (removed != null) {
             System.out.println("[LobbyService] Uklonjena igra: " + removed);
         }
@@ -111,20 +214,160 @@ public class LobbyServiceImpl extends UnicastRemoteObject implements LobbyServic
         return true;
     }
 
+    @Override
+    public LobbyDelta registerLobbyListener(String clientId, LobbyListener listener) throws RemoteException {
+        if (clientId == null || listener == null) {
+            throw new IllegalArgumentException("ClientId i listener ne mogu biti null");
+        }
+
+        // Snapshot i registracija pod lockom - listener dobiva točno događaje nakon vraćene verzije
+        synchronized (lock) {
+            ListenerOutbox<LobbyEvent> outbox = new ListenerOutbox<>("LobbyService", clientId, OUTBOX_POLICY, dispatcher,
+                    batch -> {
+                        if (batch.size() == 1) {
+                            listener.onLobbyEvent(batch.get(0));
+                        } else {
+                            listener.onLobbyEvents(batch);
+                        }
+                    },
+                    evicted -> listeners.remove(evicted.getName(), evicted));
+            ListenerOutbox<LobbyEvent> previous = listeners.put(clientId, outbox);
+            if (previous != null) {
+                previous.close();
+            }
+            System.out.println("[LobbyService] Registriran lobby listener: " + clientId);
+            return LobbyDelta.snapshot(version, new ArrayList<>(games.values()));
+        }
+    }
+
+    @Override
+    public void unregisterLobbyListener(String clientId) throws RemoteException {
+        ListenerOutbox<LobbyEvent> outbox = listeners.remove(clientId);
+        if (outbox != null) {
+            outbox.close();
+            System.out.println("[LobbyService] Deregistriran lobby listener: " + clientId);
+        }
+    }
+
+    @Override
+    public LobbyDelta getAvailableGamesSince(long since) throws RemoteException {
+        synchronized (lock) {
+            if (since == version) {
+                return LobbyDelta.events(version, List.of());
+            }
+
+            // Verzija iz budućnosti (server restartan) ili starija od loga - cijela lista
+            long oldest = eventLog.isEmpty() ? version + 1 : eventLog.peekFirst().getVersion();
+            if (since < 0 || since > version || since + 1 < oldest) {
+                return LobbyDelta.snapshot(version, new ArrayList<>(games.values()));
+            }
+
+            List<LobbyEvent> events = new ArrayList<>((int) (version - since));
+            Iterator<LobbyEvent> it = eventLog.descendingIterator();
+            while (it.hasNext()) {
+                LobbyEvent event = it.next();
+                if (event.getVersion() <= since) break;
+                events.add(event);
+            }
+            Collections.reverse(events);
+            return LobbyDelta.events(version, events);
+        }
+    }
+
+    // Mapa i indeksi se mijenjaju samo kroz put/remove, pod lockom
+    private GameInfo put(GameInfo game) {
+        GameInfo old = games.put(game.getGameId(), game);
+        unindex(old);
+        allGames.add(game);
+        gamesByStatus.get(game.getStatus()).add(game);
+        statusCounts.get(game.getStatus()).incrementAndGet();
+        if (game.isJoinable()) {
+            joinableGames.add(game);
+            joinableCount.incrementAndGet();
+        }
+        return old;
+    }
+
+    private GameInfo remove(String gameId) {
+        GameInfo removed = games.remove(gameId);
+        unindex(removed);
+        return removed;
+    }
+
+    private void unindex(GameInfo game) {
+        if (game == null) return;
+        allGames.remove(game);
+        gamesByStatus.get(game.getStatus()).remove(game);
+        statusCounts.get(game.getStatus()).decrementAndGet();
+        if (joinableGames.remove(game)) {
+            joinableCount.decrementAndGet();
+        }
+    }
+
+    // Zove se pod lockom, pa je redoslijed u logu i u redu svakog listenera isti kao redoslijed verzija
+    private void publish(LobbyEvent.Type type, String gameId, GameInfo game) {
+        LobbyEvent event = new LobbyEvent(++version, type, gameId, game);
+        if (journal != null) {
+            if (type == LobbyEvent.Type.REMOVED) {
+                journal.gameRemove(version, gameId);
+            } else {
+                journal.gamePut(version, game);
+            }
+        }
+        eventLog.addLast(event);
+        if (eventLog.size() > NetworkConstants.LOBBY_EVENT_LOG_SIZE) {
+            eventLog.removeFirst();
+        }
+        notifyListeners(event);
+    }
+
+    // samo stavlja događaj u red svakog listenera, ne čeka remote pozive; nedostupne izbacuje ListenerOutbox
+    private void notifyListeners(LobbyEvent event) {
+        for (ListenerOutbox<LobbyEvent> outbox : listeners.values()) {
+            outbox.offer(event);
+        }
+    }
+
+    void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Vraća igre iz journala prije nego se servis registrira - verzija se nastavlja, pa klijenti
+    // sa starom verzijom dobiju cijelu listu umjesto krivih delti
+    void restore(Journal.State state) {
+        synchronized (lock) {
+            state.games.values().forEach(this::put);
+            version = Math.max(version, state.lobbyVersion);
+        }
+    }
+
     public void cleanupOldGames() {
-        // Ukloni igre starije od 1 sat
-        games.entrySet().removeIf(entry -> {
-            GameInfo game = entry.getValue();
-            return java.time.Duration.between(game.getCreatedAt(),
-                    java.time.LocalDateTime.now()).toHours() > 1;
-        });
+        // Ukloni igre starije od 1 sat - najstarije su na kraju indeksa, pa se ide od kraja dok ima starih
+        synchronized (lock) {
+            java.time.LocalDateTime now = java.time.LocalDateTime.now();
+            GameInfo oldest;
+            while ((oldest = allGames.pollLast()) != null) {
+                if (java.time.Duration.between(oldest.getCreatedAt(), now).toHours() <= 1) {
+                    allGames.add(oldest);
+                    break;
+                }
+                remove(oldest.getGameId());
+                publish(LobbyEvent.Type.REMOVED, oldest.getGameId(), null);
+            }
+        }
     }
 
     public String getStatistics() {
-        return String.format("Ukupno igara: %d, Dostupnih: %d, U tijeku: %d",
+        // Samo brojači, bez prolaza kroz igre
+        int queued = listeners.values().stream()
+                .mapToInt(ListenerOutbox::getQueueDepth)
+                .sum();
+        return String.format("Ukupno igara: %d, Dostupnih: %d, U tijeku: %d, Lobby listenera: %d, U redu za slanje: %d",
                 games.size(),
-                games.values().stream().filter(GameInfo::isJoinable).count(),
-                games.values().stream().filter(g -> g.getStatus() == GameInfo.GameStatus.IN_PROGRESS).count()
+                joinableCount.get(),
+                statusCounts.get(GameInfo.GameStatus.IN_PROGRESS).get(),
+                listeners.size(),
+                queued
         );
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package hr.ipicek.jamb.network.rmi;
 
 import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
@@ -14,6 +17,9 @@ import java.util.concurrent.TimeUnit;
  // Koristi JNDI naming za registraciju servisa.
 public class RMIRegistryServer {
     private final int port;
+    // null = bez journala, stanje se gubi restartom
+    private final Path journalFile;
+    private Journal journal;
     private Registry registry;
     private LobbyServiceImpl lobbyService;
     private ChatServiceImpl chatService;
@@ -25,7 +31,18 @@ public class RMIRegistryServer {
     }
 
     public RMIRegistryServer(int port) {
+        this(port, defaultJournalFile());
+    }
+
+    public RMIRegistryServer(int port, Path journalFile) {
         this.port = port;
+        this.journalFile = journalFile;
+    }
+
+    // -Djamb.journal=putanja, prazno isključuje journal
+    private static Path defaultJournalFile() {
+        String path = System.getProperty("jamb.journal", NetworkConstants.JOURNAL_FILE);
+        return path.isBlank() ? null : Path.of(path);
     }
 
     // start rmi registrija
@@ -42,13 +59,14 @@ public class RMIRegistryServer {
             registry = LocateRegistry.createRegistry(port);
             System.out.println("[RMIRegistry] Registry kreiran na portu " + port);
 
-            // Kreiraj i registriraj LobbyService
+            // Kreiraj servise i vrati stanje iz journala prije registracije, da klijenti ne vide praznu listu
             lobbyService = new LobbyServiceImpl();
+            chatService = new ChatServiceImpl();
+            openJournal();
+
             registry.rebind(NetworkConstants.RMI_LOBBY_SERVICE, lobbyService);
             System.out.println("[RMIRegistry] " + NetworkConstants.RMI_LOBBY_SERVICE + " registriran");
 
-            // Kreiraj i registriraj ChatService
-            chatService = new ChatServiceImpl();
             registry.rebind(NetworkConstants.RMI_CHAT_SERVICE, chatService);
             System.out.println("[RMIRegistry] " + NetworkConstants.RMI_CHAT_SERVICE + " registriran");
 
@@ -66,6 +84,25 @@ public class RMIRegistryServer {
         }
     }
 
+    private void openJournal() {
+        if (journalFile == null) return;
+
+        long start = System.nanoTime();
+        try {
+            journal = Journal.open(journalFile);
+            lobbyService.restore(journal.recovered());
+            chatService.restore(journal.recovered());
+            lobbyService.attachJournal(journal);
+            chatService.attachJournal(journal);
+            System.out.println("[RMIRegistry] Stanje oporavljeno iz journala za " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            // Server radi i bez journala, samo se stanje neće sačuvati
+            System.err.println("[RMIRegistry] Journal nedostupan (" + journalFile + "): " + e.getMessage());
+            journal = null;
+        }
+    }
+
     private void startMaintenanceThread() {
         maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "RMI-Maintenance-Thread");
@@ -92,6 +129,20 @@ public class RMIRegistryServer {
                 System.err.println("[RMIRegistry] Maintenance greška: " + e.getMessage());
             }
         }, 30, 30, TimeUnit.MINUTES);
+
+        // Journal: flush mapirane regije i sažimanje kad naraste - na ovom threadu, ne na RMI pozivima
+        if (journal != null) {
+            maintenanceExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    journal.force();
+                    if (journal.needsCompaction()) {
+                        journal.compact();
+                    }
+                } catch (Exception e) {
+                    System.err.println("[RMIRegistry] Journal greška: " + e.getMessage());
+                }
+            }, NetworkConstants.JOURNAL_FLUSH_MS, NetworkConstants.JOURNAL_FLUSH_MS, TimeUnit.MILLISECONDS);
+        }
     }
 
     public void stop() {
@@ -112,6 +163,10 @@ public class RMIRegistryServer {
             }
         }
 
+        if (journal != null) {
+            journal.close();
+        }
+
         // Unbind servise
         try {
             if (registry != null) {
@@ -135,6 +190,14 @@ public class RMIRegistryServer {
         return port;
     }
 
+    public LobbyServiceImpl getLobbyService() {
+        return lobbyService;
+    }
+
+    public ChatServiceImpl getChatService() {
+        return chatService;
+    }
+
 
     // statistika servera
     public String getStatistics() {
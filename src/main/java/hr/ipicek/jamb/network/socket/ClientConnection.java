@@ -0,0 +1,30 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+
+
+ // Jedna klijentska konekcija na serveru, neovisno o transportu (thread po klijentu ili NIO event loop)
+interface ClientConnection {
+
+    // @return true ako je poruka poslana (ili stavljena u red za slanje), false ako je konekcija mrtva
+    default boolean sendMessage(GameMessage message) {
+        return send(new EncodedMessage(message));
+    }
+
+    // Broadcast kodira poruku jednom i isti okvir daje svim konekcijama.
+    // Konekcija s više od OUTBOUND_HIGH_WATER_MARK poruka u redu se odspaja i vraća false.
+    boolean send(EncodedMessage message);
+
+    void close();
+
+    // Zatvara bez slanja reda - peeru koji ne odgovara na heartbeat nema smisla ništa slati
+    void abort();
+
+    String getClientName();
+
+    // Broj poruka koje čekaju na slanje ovom klijentu
+    int getQueueDepth();
+
+    // Kad je zadnji put nešto stiglo od klijenta i RTT zadnjeg PING/PONG-a
+    Heartbeat getHeartbeat();
+}
@@ -1,52 +1,67 @@
 package hr.ipicek.jamb.network.socket;
 
 import hr.ipicek.jamb.network.protocol.GameMessage;
-import hr.ipicek.jamb.network.protocol.MessageType;
+import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 
- // Thread koji rukuje komunikacijom sa jednim klijentom na serveru.
-class ClientHandler extends Thread {
+ // Rukuje komunikacijom sa jednim klijentom na serveru. Server ga pokreće na platform ili virtual threadu.
+class ClientHandler implements Runnable, ClientConnection {
 
     private final Socket socket;
-    private final GameServer server;
-    private final ObjectOutputStream out;
-    private final ObjectInputStream in;
-    private String clientName;
+    private final BiConsumer<GameMessage, ClientConnection> onMessage;
+    private final Consumer<ClientConnection> onClose;
+    private final DataInputStream in;
+    // Odlazni red - pisanje i flush radi writer thread, socket zatvara kad isprazni red
+    private final FrameWriter writer;
+    private final AtomicBoolean writerStarted = new AtomicBoolean();
+    private final Heartbeat heartbeat = new Heartbeat();
+    private volatile String clientName;
+    // Dogovara se iz PLAYER_JOINED poruke, do tada JAVA koju razumije svaki klijent
+    private volatile WireFormat wireFormat = WireFormat.JAVA;
     private volatile boolean running;
 
-    public ClientHandler(Socket socket, GameServer server) throws IOException {
+    // onMessage/onClose dolaze od servera koji drži konekciju (GameServer ili TableServer)
+    public ClientHandler(Socket socket, BiConsumer<GameMessage, ClientConnection> onMessage,
+                         Consumer<ClientConnection> onClose) throws IOException {
         this.socket = socket;
-        this.server = server;
+        this.onMessage = onMessage;
+        this.onClose = onClose;
         this.running = true;
         this.clientName = "Player-" + socket.getPort(); // Privremeno ime
 
-        // VAŽNO: Output stream mora biti kreiran PRIJE input stream-a
-        // zbog ObjectInputStream konstruktora koji čita header
-        this.out = new ObjectOutputStream(socket.getOutputStream());
-        this.out.flush();
-        this.in = new ObjectInputStream(socket.getInputStream());
-
-        setDaemon(true);
-        setName("ClientHandler-" + clientName);
+        // Poruke idu kao okviri s duljinom (FrameCodec), isti format kao NIO transport
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), NetworkConstants.BUFFER_SIZE));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), NetworkConstants.BUFFER_SIZE));
+        this.writer = new FrameWriter(out, this::closeSocket);
     }
 
     @Override
     public void run() {
+        // Writer na istoj vrsti threada kao i reader (platform ili virtual, ovisno o transportu)
+        writerStarted.set(true);
+        if (!running) {
+            closeSocket();
+        } else {
+            ThreadUtils.builder("ClientWriter-" + clientName, ThreadUtils.isVirtual(Thread.currentThread())).start(writer);
+        }
+
         try {
-            while (running && !isInterrupted()) {
+            while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    Object obj = in.readObject();
-
-                    if (obj instanceof GameMessage message) {
-                        handleMessage(message);
-                    }
+                    handleMessage(FrameCodec.readFrame(in));
                 } catch (SocketException e) {
                     if (running) {
                         System.err.println("[ClientHandler] Socket greška: " + e.getMessage());
@@ -55,8 +70,6 @@ class ClientHandler extends Thread {
                 } catch (EOFException e) {
                     System.out.println("[ClientHandler] Klijent " + clientName + " se odspojio sa servera");
                     break;
-                } catch (ClassNotFoundException e) {
-                    System.err.println("[ClientHandler] Nepoznata klasa: " + e.getMessage());
                 }
             }
         } catch (IOException e) {
@@ -65,34 +78,42 @@ class ClientHandler extends Thread {
             }
         } finally {
             close();
-            server.removeClient(this);
+            onClose.accept(this);
         }
     }
 
     private void handleMessage(GameMessage message) {
+        // PING/PONG ne idu serveru - samo osvježe liveness i RTT
+        heartbeat.onReceived();
+        if (heartbeat.handle(message, "SYSTEM", this::sendMessage)) return;
+
         // Ako je ovo prva poruka, postavi ime klijenta
-        if (message.getType() == MessageType.PLAYER_JOINED) {
+        if (WireFormat.isHandshake(message)) {
             this.clientName = message.getSenderName();
-            System.out.println("[ClientHandler] Igrač identificiran: " + clientName);
+            this.wireFormat = WireFormat.negotiate(message);
+            System.out.println("[ClientHandler] Igrač identificiran: " + clientName + " (" + wireFormat + ")");
         }
 
         System.out.println("[ClientHandler] Primljena poruka od " + clientName + ": " + message.getType());
 
         // Proslijedi poruku serveru
-        server.onMessageReceived(message, this);
+        onMessage.accept(message, this);
     }
 
 
-     // Šalje poruku ovom klijentu
-    // @return true ako je uspješno poslano, false ako je greška
-    public boolean sendMessage(GameMessage message) {
+     // Stavlja okvir u odlazni red ovog klijenta - ne čeka na socket
+    // @return true ako je poruka u redu, false ako je konekcija zatvorena, zagušena ili je greška
+    @Override
+    public boolean send(EncodedMessage message) {
+        if (writer.isClosed()) return false;
+        if (writer.getQueueDepth() >= NetworkConstants.OUTBOUND_HIGH_WATER_MARK) {
+            System.err.println("[ClientHandler] Klijent " + clientName + " ne čita (" +
+                    writer.getQueueDepth() + " poruka u redu) - odspajam");
+            closeNow();
+            return false;
+        }
         try {
-            synchronized (out) {
-                out.writeObject(message);
-                out.flush();
-                out.reset(); // Prevent memory leak
-            }
-            return true;
+            return writer.enqueue(message.frame(wireFormat));
         } catch (IOException e) {
             System.err.println("[ClientHandler] Greška pri slanju poruke klijentu " +
                     clientName + ": " + e.getMessage());
@@ -100,23 +121,38 @@ class ClientHandler extends Thread {
         }
     }
 
+    // Poruke koje su već u redu (npr. ERROR prije izbacivanja) se još pošalju, pa writer zatvori socket
     public void close() {
         running = false;
+        writer.close();
 
-        try {
-            if (in != null) in.close();
-        } catch (IOException e) {
-            // Ignore
+        if (!writerStarted.get()) {
+            closeSocket();
+            return;
         }
-
         try {
-            if (out != null) out.close();
+            // Reader odmah izlazi iz petlje, a izlazni smjer ostaje otvoren dok writer ne završi
+            if (!socket.isClosed()) socket.shutdownInput();
         } catch (IOException e) {
             // Ignore
         }
+    }
+
+    // Bez slanja reda - writer izlazi kad mu se zatvori socket, reader vidi grešku i javlja onClose
+    @Override
+    public void abort() {
+        closeNow();
+    }
+
+    private void closeNow() {
+        running = false;
+        writer.close();
+        closeSocket();
+    }
 
+    private void closeSocket() {
         try {
-            if (socket != null && !socket.isClosed()) {
+            if (!socket.isClosed()) {
                 socket.close();
             }
         } catch (IOException e) {
@@ -124,6 +160,16 @@ class ClientHandler extends Thread {
         }
     }
 
+    @Override
+    public int getQueueDepth() {
+        return writer.getQueueDepth();
+    }
+
+    @Override
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
     public String getClientName() {
         return clientName;
     }
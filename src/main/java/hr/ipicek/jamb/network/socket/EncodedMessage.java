@@ -0,0 +1,39 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+
+import java.io.IOException;
+
+
+ // Poruka serijalizirana jednom po wire formatu, kao gotov okvir [duljina][tijelo].
+ // Broadcast isti byte[] daje svim konekcijama - nitko ga ne mijenja, NIO ga samo omota u ByteBuffer.
+final class EncodedMessage {
+
+    private final GameMessage message;
+    // Lijeno po formatu; utrka dva threada samo znači da se isti okvir kodira dvaput
+    private volatile byte[] javaFrame;
+    private volatile byte[] binaryFrame;
+
+    EncodedMessage(GameMessage message) {
+        this.message = message;
+    }
+
+    GameMessage message() {
+        return message;
+    }
+
+    byte[] frame(WireFormat format) throws IOException {
+        if (format == WireFormat.BINARY) {
+            byte[] frame = binaryFrame;
+            if (frame == null) {
+                binaryFrame = frame = FrameCodec.encodeFrame(message, format);
+            }
+            return frame;
+        }
+        byte[] frame = javaFrame;
+        if (frame == null) {
+            javaFrame = frame = FrameCodec.encodeFrame(message, format);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,92 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.BinaryMessageCodec;
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
+
+ // Wire format za sve transporte: [int duljina][tijelo poruke].
+ // Blocking (ClientHandler/GameClient) i NIO transport koriste iste okvire pa klijent radi s oba servera.
+ // Tijelo je Java serijalizacija ili BinaryMessageCodec (vidi WireFormat) - decode prepoznaje format po prvom bajtu.
+final class FrameCodec {
+
+    static final int HEADER_SIZE = Integer.BYTES;
+
+    private FrameCodec() {}
+
+    static byte[] encode(GameMessage message, WireFormat format) throws IOException {
+        byte[] body = format == WireFormat.BINARY ? BinaryMessageCodec.encode(message) : encodeJava(message);
+        if (body.length > NetworkConstants.MAX_MESSAGE_SIZE) {
+            throw new IOException("Poruka prevelika: " + body.length + " B");
+        }
+        return body;
+    }
+
+    private static byte[] encodeJava(GameMessage message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Cijeli okvir (zaglavlje + tijelo) u jednom polju - takav ide u odlazni red konekcije
+    static byte[] encodeFrame(GameMessage message, WireFormat format) throws IOException {
+        byte[] body = encode(message, format);
+        byte[] frame = new byte[HEADER_SIZE + body.length];
+        frame[0] = (byte) (body.length >>> 24);
+        frame[1] = (byte) (body.length >>> 16);
+        frame[2] = (byte) (body.length >>> 8);
+        frame[3] = (byte) body.length;
+        System.arraycopy(body, 0, frame, HEADER_SIZE, body.length);
+        return frame;
+    }
+
+    static WireFormat formatOf(byte[] body, int offset, int length) {
+        return BinaryMessageCodec.isBinary(body, offset, length) ? WireFormat.BINARY : WireFormat.JAVA;
+    }
+
+    static GameMessage decode(byte[] body, int offset, int length) throws IOException {
+        if (BinaryMessageCodec.isBinary(body, offset, length)) {
+            return BinaryMessageCodec.decode(body, offset, length);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body, offset, length))) {
+            Object obj = in.readObject();
+            // Java serijalizacija ne prolazi kroz konstruktor - poruka bez tipa bi srušila switch kod primatelja
+            if (obj instanceof GameMessage message && message.getType() != null) {
+                return message;
+            }
+            throw new StreamCorruptedException("Okvir ne sadrži GameMessage: " + obj);
+        } catch (ClassNotFoundException e) {
+            throw new StreamCorruptedException("Nepoznata klasa: " + e.getMessage());
+        }
+    }
+
+    // Provjera zaglavlja - štiti od alokacije ogromnog buffera zbog pokvarenog okvira
+    static int checkLength(int length) throws IOException {
+        if (length <= 0 || length > NetworkConstants.MAX_MESSAGE_SIZE) {
+            throw new StreamCorruptedException("Neispravna duljina okvira: " + length);
+        }
+        return length;
+    }
+
+    static byte[] readBody(DataInputStream in) throws IOException {
+        int length = checkLength(in.readInt());
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return body;
+    }
+
+    static GameMessage readFrame(DataInputStream in) throws IOException {
+        byte[] body = readBody(in);
+        return decode(body, 0, body.length);
+    }
+}
@@ -0,0 +1,111 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+ // Odlazni red jedne blocking konekcije (ClientHandler, GameClient) i writer koji ga prazni na svom threadu.
+ // sendMessage samo stavi okvir u red pa broadcast ne čeka sporog klijenta; writer sve što je na čekanju
+ // zapiše u buffered stream i napravi jedan flush po buđenju.
+final class FrameWriter implements Runnable {
+
+    // -Djamb.flushLatencyMs=N: nakon prvog okvira writer čeka najviše N ms na još okvira prije flusha
+    static final long MAX_FLUSH_LATENCY_MS =
+            Long.getLong("jamb.flushLatencyMs", NetworkConstants.OUTBOUND_FLUSH_LATENCY_MS);
+
+    // Oznaka kraja u redu - writer zapiše sve prije nje i zatvori konekciju
+    private static final byte[] END = new byte[0];
+
+    private final DataOutputStream out;
+    private final Runnable onExit;
+    private final long maxLatencyNanos;
+    // Gotovi okviri (EncodedMessage) - isti byte[] može biti u redovima više konekcija
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private final List<byte[]> batch = new ArrayList<>();
+    private volatile boolean closed;
+
+    // onExit zatvara socket - zove se kad writer završi (END, greška pri pisanju ili prekid)
+    FrameWriter(DataOutputStream out, Runnable onExit) {
+        this(out, onExit, MAX_FLUSH_LATENCY_MS);
+    }
+
+    FrameWriter(DataOutputStream out, Runnable onExit, long maxLatencyMs) {
+        this.out = out;
+        this.onExit = onExit;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+    }
+
+    // @return false ako je writer zatvoren
+    boolean enqueue(byte[] frame) {
+        if (closed) return false;
+        queue.add(frame);
+        return true;
+    }
+
+    // Okviri koji su već u redu se još pošalju, novi se odbijaju
+    void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(END);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            boolean end = false;
+            while (!end) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxLatencyNanos;
+
+                // Sve što je na čekanju ide u isti flush; uz max latency još malo pričeka na nove okvire
+                while (true) {
+                    queue.drainTo(batch);
+                    end = writeBatch();
+                    if (end || maxLatencyNanos == 0) break;
+
+                    long wait = deadline - System.nanoTime();
+                    byte[] next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Konekcija je pukla - reader to vidi kad onExit zatvori socket
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            queue.clear();
+            onExit.run();
+        }
+    }
+
+    // @return true ako je u batchu bila oznaka kraja
+    private boolean writeBatch() throws IOException {
+        try {
+            for (byte[] frame : batch) {
+                if (frame == END) return true;
+                out.write(frame);
+            }
+            return false;
+        } finally {
+            batch.clear();
+        }
+    }
+}
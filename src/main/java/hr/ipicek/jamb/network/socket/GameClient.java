@@ -1,30 +1,51 @@
 package hr.ipicek.jamb.network.socket;
 
 import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.GameStateUpdate;
+import hr.ipicek.jamb.network.protocol.MessageType;
 import hr.ipicek.jamb.util.Logger;
 import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.function.Consumer;
 
 
- // TCP klijent koji se povezuje na GameServer, prima poruke od njega
-public class GameClient extends Thread {
+ // TCP klijent koji se povezuje na GameServer, prima poruke od njega.
+ // Petlja za čitanje radi na vlastitom (po defaultu virtual) threadu - vidi ThreadUtils.
+public class GameClient implements Runnable {
 
     private static final int DEFAULT_PORT = NetworkConstants.DEFAULT_GAME_SERVER_PORT;
 
     private final String serverHost;
     private final int serverPort;
     private final String playerName;
-
-    private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    // Stol na dedicated serveru (null za igru koju hosta igrač)
+    private final String gameId;
+
+    private volatile Socket socket;
+    private DataInputStream in;
+    // Odlazni red - pisanje radi writer thread, socket zatvara kad isprazni red
+    private volatile FrameWriter writer;
+    // Piše se JAVA dok server ne odgovori binarnim okvirom (vidi WireFormat)
+    private volatile WireFormat wireFormat = WireFormat.JAVA;
+    private final Heartbeat heartbeat = new Heartbeat();
+    private volatile ScheduledFuture<?> heartbeatTask;
+
+    // Token sesije (ACKNOWLEDGE od servera) i zadnja verzija stanja primljena bez rupe - s njima se
+    // nakon prekida veze šalje RECONNECT_REQUEST i server vraća samo propušteno
+    private volatile String sessionToken;
+    private volatile long lastSequence;
+    private volatile boolean resuming;
 
     private Consumer<GameMessage> messageCallback;
     private Consumer<String> statusCallback;
@@ -39,28 +60,32 @@ public class GameClient extends Thread {
     }
 
     public GameClient(String playerName, String serverHost, int serverPort) {
+        this(playerName, serverHost, serverPort, null);
+    }
+
+    public GameClient(String playerName, String serverHost, int serverPort, String gameId) {
         this.playerName = playerName;
         this.serverHost = serverHost;
         this.serverPort = serverPort;
+        this.gameId = gameId;
         this.running = false;
         this.connected = false;
-        setDaemon(true);
-        setName("GameClient-Thread-" + playerName);
+    }
+
+    public void start() {
+        ThreadUtils.start("GameClient-Thread-" + playerName, this);
     }
 
     @Override
     public void run() {
         try {
             notifyStatus("Povezivanje na server " + serverHost + ":" + serverPort + "...");
-            socket = new Socket(serverHost, serverPort);
-
-            // VAŽNO: Output stream PRIJE input stream-a
-            out = new ObjectOutputStream(socket.getOutputStream());
-            out.flush();
-            in = new ObjectInputStream(socket.getInputStream());
+            openSocket();
 
             connected = true;
             running = true;
+            heartbeat.onReceived();
+            heartbeatTask = Heartbeat.schedule(this::checkHeartbeat);
             notifyStatus("Uspješno povezan na server!");
 
             // Notify UI da smo povezani
@@ -68,12 +93,18 @@ public class GameClient extends Thread {
                 onConnectedCallback.run();
             }
 
-            // Pošalji PLAYER_JOINED poruku
-            sendMessage(GameMessage.playerJoined(playerName));
+            // Pošalji PLAYER_JOINED poruku - payload nudi binarni wire format
+            sendMessage(new GameMessage(MessageType.PLAYER_JOINED, playerName, WireFormat.offer()));
 
             // Glavna petlja - slušaj poruke od servera
             listenForMessages();
 
+            // Veza je pukla, a nismo se sami odspojili - nastavi sesiju ako je server dao token.
+            // Ako veza pukne i prije nego server potvrdi nastavak, odustaje se
+            while (running && sessionToken != null && !resuming && reconnect()) {
+                listenForMessages();
+            }
+
         } catch (IOException e) {
             notifyStatus("Greška pri povezivanju: " + e.getMessage());
             connected = false;
@@ -82,15 +113,56 @@ public class GameClient extends Thread {
         }
     }
 
+    // Okviri s duljinom (FrameCodec) - isti format za blocking i NIO server
+    private void openSocket() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(serverHost, serverPort), NetworkConstants.CONNECTION_TIMEOUT);
+        this.socket = socket;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), NetworkConstants.BUFFER_SIZE));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), NetworkConstants.BUFFER_SIZE));
+        wireFormat = WireFormat.JAVA;
+        // Writer zatvara svoj socket, ne trenutni - nakon reconnecta stari writer još može završavati
+        writer = new FrameWriter(out, () -> closeQuietly(socket));
+        ThreadUtils.builder("GameClient-Writer-" + playerName, ThreadUtils.isVirtual(Thread.currentThread())).start(writer);
+    }
+
+    // Novi socket i RECONNECT_REQUEST sa zadnjom verzijom stanja; MAX_RETRY_ATTEMPTS pokušaja s RETRY_DELAY_MS pauzom
+    private boolean reconnect() {
+        writer.close();
+        closeSocket();
+
+        for (int attempt = 1; attempt <= NetworkConstants.MAX_RETRY_ATTEMPTS && running; attempt++) {
+            notifyStatus("Veza prekinuta - ponovno spajanje (" + attempt + "/" + NetworkConstants.MAX_RETRY_ATTEMPTS + ")...");
+            try {
+                heartbeat.onReceived();
+                openSocket();
+                resuming = true;
+                sendMessage(GameMessage.reconnectRequest(playerName, sessionToken, lastSequence, WireFormat.offer()));
+                return true;
+            } catch (IOException e) {
+                Logger.Client.debug("Ponovno spajanje nije uspjelo: " + e.getMessage());
+                try {
+                    Thread.sleep(NetworkConstants.RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
     private void listenForMessages() {
         try {
-            while (running && !isInterrupted()) {
+            while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    Object obj = in.readObject();
-
-                    if (obj instanceof GameMessage message) {
-                        handleMessage(message);
+                    byte[] body = FrameCodec.readBody(in);
+                    if (wireFormat == WireFormat.JAVA && FrameCodec.formatOf(body, 0, body.length) == WireFormat.BINARY) {
+                        wireFormat = WireFormat.BINARY;
+                        Logger.Client.debug("Server je prihvatio binarni wire format");
                     }
+                    handleMessage(FrameCodec.decode(body, 0, body.length));
                 } catch (SocketException e) {
                     if (running) {
                         notifyStatus("Socket greška: " + e.getMessage());
@@ -99,8 +171,6 @@ public class GameClient extends Thread {
                 } catch (EOFException e) {
                     notifyStatus("Server je zatvorio konekciju");
                     break;
-                } catch (ClassNotFoundException e) {
-                    notifyStatus("Nepoznata klasa poruke: " + e.getMessage());
                 }
             }
         } catch (IOException e) {
@@ -111,6 +181,31 @@ public class GameClient extends Thread {
     }
 
     private void handleMessage(GameMessage message) {
+        // PING/PONG ne idu u UI - samo osvježe liveness i RTT
+        heartbeat.onReceived();
+        if (heartbeat.handle(message, playerName, this::sendMessage)) return;
+
+        if (message.getType() == MessageType.ACKNOWLEDGE && message.getPayload() instanceof String token) {
+            if (resuming) {
+                notifyStatus("Ponovno povezan - igra se nastavlja");
+            }
+            sessionToken = token;
+            resuming = false;
+            return;
+        }
+        if (message.getType() == MessageType.ERROR && resuming) {
+            // Server ne prihvaća nastavak (sesija istekla, igra gotova) - nema više pokušaja
+            sessionToken = null;
+        }
+        if (message.getType() == MessageType.GAME_START) {
+            lastSequence = 0;
+        }
+        // Ista provjera kao u NetworkGameEngine - delta s rupom ne pomiče verziju
+        GameStateUpdate state = message.getPayloadAs(GameStateUpdate.class);
+        if (state != null && (state.snapshot() ? state.sequence() >= lastSequence : state.sequence() == lastSequence + 1)) {
+            lastSequence = state.sequence();
+        }
+
         Logger.Client.debug("Primljena poruka: " + message.getType());
 
         // Proslijedi poruku callback-u (UI)
@@ -143,28 +238,48 @@ public class GameClient extends Thread {
     }
 
 
-     // Šalje poruku serveru
+     // Stavlja poruku u odlazni red - ne čeka na socket
     public boolean sendMessage(GameMessage message) {
-        if (!connected || out == null) {
+        FrameWriter writer = this.writer;
+        if (!connected || writer == null) {
             notifyStatus("Nije povezan na server!");
             return false;
         }
 
+        // Dedicated server rutira poruke po ID-u stola
+        if (gameId != null && message.getGameId() == null) {
+            message = message.withGameId(gameId);
+        }
+
         try {
-            synchronized (out) {
-                out.writeObject(message);
-                out.flush();
-                out.reset(); // Prevent memory leak
-            }
-            return true;
+            return writer.enqueue(FrameCodec.encodeFrame(message, wireFormat));
         } catch (IOException e) {
             notifyStatus("Greška pri slanju poruke: " + e.getMessage());
             return false;
         }
     }
 
+    // Heartbeat tick: server koji ništa ne pošalje TIMEOUT_MS je mrtav - socket se zatvara bez slanja reda,
+    // pa reader izlazi i run() pokušava nastaviti sesiju (ili disconnect() javi UI-u)
+    private void checkHeartbeat() {
+        if (!connected) return;
+        if (heartbeat.isTimedOut()) {
+            notifyStatus("Server ne odgovara " + Heartbeat.TIMEOUT_MS + " ms - prekidam vezu");
+            heartbeat.onReceived();
+            writer.close();
+            closeSocket();
+        } else {
+            sendMessage(Heartbeat.ping(playerName));
+        }
+    }
+
     // Odspaja igrača sa servera
     public void disconnect() {
+        ScheduledFuture<?> task = heartbeatTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+
         if (connected) {
             // Pošalji disconnect poruku prije zatvaranja
             sendMessage(GameMessage.disconnect(playerName));
@@ -173,18 +288,31 @@ public class GameClient extends Thread {
         running = false;
         connected = false;
 
-        try {
-            if (in != null) in.close();
-        } catch (IOException e) {
-            // Ignore
+        // DISCONNECT i ostale poruke iz reda se još pošalju, pa writer zatvori socket
+        if (writer != null) {
+            writer.close();
+            try {
+                if (!socket.isClosed()) socket.shutdownInput();
+            } catch (IOException e) {
+                // Ignore
+            }
+        } else {
+            closeSocket();
         }
 
-        try {
-            if (out != null) out.close();
-        } catch (IOException e) {
-            // Ignore
+        notifyStatus("Diskonektovan od servera");
+
+        // Notify UI
+        if (onDisconnectedCallback != null) {
+            onDisconnectedCallback.run();
         }
+    }
 
+    private void closeSocket() {
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
         try {
             if (socket != null && !socket.isClosed()) {
                 socket.close();
@@ -192,13 +320,6 @@ public class GameClient extends Thread {
         } catch (IOException e) {
             // Ignore
         }
-
-        notifyStatus("Diskonektovan od servera");
-
-        // Notify UI
-        if (onDisconnectedCallback != null) {
-            onDisconnectedCallback.run();
-        }
     }
 
     // Callback metode
@@ -230,10 +351,25 @@ public class GameClient extends Thread {
         return connected;
     }
 
+    // Broj poruka koje čekaju na slanje serveru
+    public int getQueueDepth() {
+        FrameWriter writer = this.writer;
+        return writer != null ? writer.getQueueDepth() : 0;
+    }
+
+    // RTT do servera u ms (-1 dok ne stigne prvi PONG)
+    public long getRttMillis() {
+        return heartbeat.getRttMillis();
+    }
+
     public String getPlayerName() {
         return playerName;
     }
 
+    public String getGameId() {
+        return gameId;
+    }
+
     public String getServerHost() {
         return serverHost;
     }
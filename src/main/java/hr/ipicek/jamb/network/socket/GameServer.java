@@ -1,26 +1,53 @@
 package hr.ipicek.jamb.network.socket;
 
 import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.GameStateUpdate;
 import hr.ipicek.jamb.network.protocol.MessageType;
 import hr.ipicek.jamb.util.Logger;
 import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
  // TCP Server koji prima konekcije igrača i upravlja mrežnom igrom. Radi u vlasitiom threadu.
 public class GameServer extends Thread {
 
     private final int port;
+    private final int maxPlayers;
+    private final ServerTransport transport;
     private ServerSocket serverSocket;
-    private final List<ClientHandler> connectedClients;
+    private NioTransport nioTransport;
+    private ExecutorService connectionExecutor;
+    private final List<ClientConnection> connectedClients;
+    private final SnapshotCache snapshotCache = new SnapshotCache();
+    // Token sesije -> ime igrača; igrač ga dobije uz PLAYER_JOINED i s njim se vraća nakon prekida veze
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    // Igrači kojima je pukla veza usred igre (ime -> nanoTime) - mjesto im se čuva RECONNECT_GRACE_MS
+    private final Map<String, Long> awayPlayers = new ConcurrentHashMap<>();
+    // Konekcije primljene nakon početka igre - smiju samo poslati RECONNECT_REQUEST
+    private final List<ClientConnection> pendingClients = new CopyOnWriteArrayList<>();
+    // Zadnje delte za klijente koji se vraćaju; lock drži broadcast i resume da se delta ne izgubi između njih
+    private final ReplayBuffer replay = new ReplayBuffer(NetworkConstants.REPLAY_BUFFER_SIZE);
+    private final ReentrantLock replayLock = new ReentrantLock();
+    // Gledatelji ne zauzimaju mjesto igrača i dobivaju odgođeni stream preko vlastitog threada
+    private final SpectatorHub spectators = new SpectatorHub(null);
+    private ScheduledFuture<?> heartbeatTask;
     private Consumer<GameMessage> messageCallback;
     private Consumer<String> statusCallback;
     private volatile boolean running;
@@ -31,7 +58,21 @@ public class GameServer extends Thread {
     }
 
     public GameServer(int port) {
+        this(port, NetworkConstants.DEFAULT_PLAYERS);
+    }
+
+    public GameServer(int port, int maxPlayers) {
+        this(port, maxPlayers, ServerTransport.THREAD_PER_CLIENT);
+    }
+
+    // maxPlayers uključuje i hosta koji igra lokalno, pa server prima najviše maxPlayers - 1 klijenata
+    public GameServer(int port, int maxPlayers, ServerTransport transport) {
+        if (maxPlayers < NetworkConstants.MIN_PLAYERS || maxPlayers > NetworkConstants.MAX_PLAYERS)
+            throw new IllegalArgumentException("Broj igrača mora biti od " + NetworkConstants.MIN_PLAYERS
+                    + " do " + NetworkConstants.MAX_PLAYERS);
         this.port = port;
+        this.maxPlayers = maxPlayers;
+        this.transport = transport;
         this.connectedClients = new CopyOnWriteArrayList<>();
         this.running = false;
         this.gameStarted = false;
@@ -41,6 +82,17 @@ public class GameServer extends Thread {
 
     @Override
     public void run() {
+        heartbeatTask = Heartbeat.schedule(this::checkHeartbeats);
+
+        if (transport == ServerTransport.NIO) {
+            runNio();
+            return;
+        }
+
+        if (transport == ServerTransport.VIRTUAL_THREADS) {
+            connectionExecutor = ThreadUtils.newVirtualThreadPerTaskExecutor("ClientHandler-");
+        }
+
         try {
             serverSocket = new ServerSocket(port);
             running = true;
@@ -66,47 +118,96 @@ public class GameServer extends Thread {
         }
     }
 
-    private void handleNewClient(Socket clientSocket) {
-        if (connectedClients.size() >= NetworkConstants.MAX_PLAYERS) {
-            notifyStatus("Odbijen novi klijent - već ima " + NetworkConstants.MAX_PLAYERS + " igrača");
-            try {
-                clientSocket.close();
-            } catch (IOException e) {
-                // Ignore
-            }
-            return;
+    // Isti callbackovi kao ClientHandler, samo konekcije drže NIO event loopovi
+    private void runNio() {
+        nioTransport = new NioTransport(port, NioTransport.DEFAULT_EVENT_LOOPS,
+                this::admitClient, this::onMessageReceived, this::removeClient);
+        try {
+            running = true;
+            notifyStatus("Server pokrenut na portu " + port + " (NIO)");
+            nioTransport.run();
+        } catch (IOException e) {
+            notifyStatus("Greška pri pokretanju servera: " + e.getMessage());
+        } finally {
+            shutdown();
         }
+    }
 
+    private void handleNewClient(Socket clientSocket) {
         try {
-            ClientHandler handler = new ClientHandler(clientSocket, this);
-            connectedClients.add(handler);
-            handler.start();
-            notifyStatus("Novi igrač povezan. Ukupno: " + connectedClients.size() + "/" + NetworkConstants.MAX_PLAYERS);
-
-            // Ako su se svi igrači povezali, pokreni igru
-            if (connectedClients.size() == NetworkConstants.MAX_PLAYERS && !gameStarted) {
-                startGame();
-            }
+            ClientHandler handler = new ClientHandler(clientSocket, this::onMessageReceived, this::removeClient);
+            admitClient(handler);
+            startHandler(handler);
         } catch (IOException e) {
             notifyStatus("Greška pri kreiranju handler-a: " + e.getMessage());
         }
     }
 
-    private void startGame() {
+    // Blocking handler po konekciji: na virtual threadu iz executora ili na vlastitom platform threadu
+    private void startHandler(ClientHandler handler) {
+        if (connectionExecutor != null) {
+            connectionExecutor.execute(handler);
+        } else {
+            ThreadUtils.builder("ClientHandler-" + handler.getClientName(), false).start(handler);
+        }
+    }
+
+    private void admitClient(ClientConnection client) {
+        // Pun stol ili igra u tijeku: prva poruka odlučuje - gledatelj ili igrač koji nastavlja sesiju
+        if (isTableClosed()) {
+            pendingClients.add(client);
+            return;
+        }
+        connectedClients.add(client);
+        notifyStatus("Novi igrač povezan. Ukupno: " + (connectedClients.size() + 1) + "/" + maxPlayers);
+    }
+
+    private boolean isTableClosed() {
+        return gameStarted || connectedClients.size() >= maxPlayers - 1;
+    }
+
+    private void rejectClient() {
+        notifyStatus(gameStarted
+                ? "Odbijen novi klijent - igra je već počela"
+                : "Odbijen novi klijent - stol je pun (" + maxPlayers + " igrača)");
+    }
+
+    // Igru pokreće host (NetworkGameEngine) jer on zna redoslijed igrača - server samo zatvara stol i šalje GAME_START
+    public void startGame(GameMessage startMessage) {
         gameStarted = true;
-        notifyStatus("Svi igrači povezani! Igra počinje...");
-        broadcast(GameMessage.gameStart());
+        snapshotCache.clear();
+        replay.clear();
+        notifyStatus("Igra počinje sa " + (connectedClients.size() + 1) + " igrača...");
+        broadcast(startMessage);
     }
 
 
-     // Šalje poruku svim povezanim klijentima
+     // Šalje poruku svim povezanim klijentima. Ne blokira (često se zove s JavaFX threada):
+    // poruka se serijalizira jednom i isti okvir ide u odlazni red svakog klijenta
     public void broadcast(GameMessage message) {
-        List<ClientHandler> disconnected = new ArrayList<>();
+        EncodedMessage encoded = new EncodedMessage(message);
+        List<ClientConnection> disconnected = new ArrayList<>();
+
+        replayLock.lock();
+        try {
+            // Delte idu i u replay buffer za igrače koji se vrate nakon prekida veze
+            GameStateUpdate state = message.getPayloadAs(GameStateUpdate.class);
+            if (message.getType() == MessageType.GAME_STATE_UPDATE && state != null && !state.snapshot()) {
+                replay.add(state.sequence(), encoded);
+            }
 
-        for (ClientHandler client : connectedClients) {
-            if (!client.sendMessage(message)) {
-                disconnected.add(client);
+            for (ClientConnection client : connectedClients) {
+                if (!client.send(encoded)) {
+                    disconnected.add(client);
+                }
             }
+        } finally {
+            replayLock.unlock();
+        }
+        spectators.publish(message);
+        // Gledatelji još dobiju odgođeno stanje i GAME_OVER (hub ga drži u redu), pa ih hub zatvori
+        if (message.getType() == MessageType.GAME_OVER) {
+            spectators.finish();
         }
 
         // Ukloni disconnected klijente
@@ -114,20 +215,64 @@ public class GameServer extends Thread {
     }
 
 
+     // Šalje poruku jednom klijentu (npr. SYNC_RESPONSE) - false ako klijent nije spojen
+    public boolean sendTo(String playerName, GameMessage message) {
+        for (ClientConnection client : connectedClients) {
+            if (client.getClientName().equals(playerName)) {
+                return client.sendMessage(message);
+            }
+        }
+        return false;
+    }
+
+     // Šalje puni snapshot jednom klijentu. Snapshot iste verzije (sequence) se kodira samo jednom,
+    // pa resync više klijenata ili kasni ulazak ne serijalizira stanje ispočetka
+    public boolean sendSnapshotTo(String playerName, long sequence, Supplier<GameMessage> snapshot) {
+        for (ClientConnection client : connectedClients) {
+            if (client.getClientName().equals(playerName)) {
+                return client.send(snapshotCache.get(sequence, snapshot));
+            }
+        }
+        return false;
+    }
+
+
      // Šalje poruku svim klijentima osim pošiljatelja
-    public void broadcastExcept(GameMessage message, ClientHandler sender) {
-        for (ClientHandler client : connectedClients) {
+    public void broadcastExcept(GameMessage message, ClientConnection sender) {
+        EncodedMessage encoded = new EncodedMessage(message);
+        for (ClientConnection client : connectedClients) {
             if (client != sender) {
-                client.sendMessage(message);
+                client.send(encoded);
             }
         }
     }
 
 
      // Callback kad server primi poruku od klijenta
-    void onMessageReceived(GameMessage message, ClientHandler sender) {
+    void onMessageReceived(GameMessage message, ClientConnection sender) {
         Logger.Server.debug("Primljena poruka: " + message.getType() + " od " + message.getSenderName());
 
+        // Gledatelji su read-only
+        if (spectators.contains(sender)) {
+            return;
+        }
+        if (message.getType() == MessageType.SPECTATE_REQUEST) {
+            addSpectator(sender);
+            return;
+        }
+        if (pendingClients.contains(sender)) {
+            resumeSession(message, sender);
+            return;
+        }
+        if (message.getType() == MessageType.PLAYER_JOINED) {
+            String token = UUID.randomUUID().toString();
+            sessions.put(token, sender.getClientName());
+            sender.sendMessage(GameMessage.session(token));
+        } else if (message.getType() == MessageType.DISCONNECT) {
+            // Igrač je otišao namjerno - nema nastavka sesije
+            sessions.values().remove(sender.getClientName());
+        }
+
         // Proslijedi poruku callback-u (UI) - to je HOST
         if (messageCallback != null) {
             messageCallback.accept(message);
@@ -160,7 +305,8 @@ public class GameServer extends Thread {
         // Ne broadcast-aj request poruke - te handlea samo server
         if (type == MessageType.ROLL_REQUEST ||
                 type == MessageType.SCORE_APPLY_REQUEST ||
-                type == MessageType.SCORE_PREVIEW_REQUEST) {
+                type == MessageType.SCORE_PREVIEW_REQUEST ||
+                type == MessageType.SYNC_REQUEST) {
             return false;
         }
 
@@ -168,8 +314,103 @@ public class GameServer extends Thread {
         return type != MessageType.ERROR;
     }
 
-    void removeClient(ClientHandler client) {
+    // Gledatelj se makne iz igrača (ili pending) - ne broji se u stol i ne dobiva token sesije
+    private void addSpectator(ClientConnection client) {
+        connectedClients.remove(client);
+        pendingClients.remove(client);
+        if (!spectators.add(client)) {
+            client.sendMessage(GameMessage.error("Dosegnut je maksimalan broj gledatelja"));
+            client.close();
+            return;
+        }
+        notifyStatus("Novi gledatelj " + client.getClientName() + ". Gledatelja: " + spectators.getSpectatorCount());
+    }
+
+    // Nastavak sesije nakon prekida veze: nova konekcija dobiva samo propuštene delte. Ako je previše
+    // zaostala, host (NetworkGameEngine) dobiva SYNC_REQUEST u ime igrača i šalje mu snapshot.
+    private void resumeSession(GameMessage message, ClientConnection client) {
+        pendingClients.remove(client);
+
+        var data = message.getType() == MessageType.RECONNECT_REQUEST
+                ? message.getPayloadAs(GameMessage.ReconnectData.class) : null;
+        String name = data != null ? sessions.get(data.sessionToken()) : null;
+        if (name == null || !name.equals(message.getSenderName())) {
+            rejectClient();
+            client.sendMessage(GameMessage.error(gameStarted ? "Igra je već počela" : "Stol je pun"));
+            client.close();
+            return;
+        }
+
+        List<EncodedMessage> missed;
+        replayLock.lock();
+        try {
+            // Stara konekcija možda još nije otkrivena kao mrtva - zamjenjuje se bez DISCONNECT-a
+            for (ClientConnection old : connectedClients) {
+                if (name.equals(old.getClientName()) && connectedClients.remove(old)) {
+                    old.abort();
+                }
+            }
+            awayPlayers.remove(name);
+            client.sendMessage(GameMessage.session(data.sessionToken()));
+            missed = replay.since(data.lastSequence());
+            if (missed != null) {
+                missed.forEach(client::send);
+            }
+            connectedClients.add(client);
+        } finally {
+            replayLock.unlock();
+        }
+
+        notifyStatus("Igrač " + name + " se ponovno spojio");
+        if (missed == null && messageCallback != null) {
+            messageCallback.accept(new GameMessage(MessageType.SYNC_REQUEST, name, null));
+        }
+    }
+
+    // Heartbeat tick: klijent od kojeg ništa nije stiglo TIMEOUT_MS se odspaja, ostali dobiju PING.
+    // Usput istječu mjesta igrača koji se nisu vratili na vrijeme
+    private void checkHeartbeats() {
+        expireAwayPlayers();
+
+        EncodedMessage ping = new EncodedMessage(Heartbeat.ping("SYSTEM"));
+        for (List<ClientConnection> clients : List.of(connectedClients, pendingClients, spectators.getConnections())) {
+            for (ClientConnection client : clients) {
+                if (client.getHeartbeat().isTimedOut()) {
+                    notifyStatus("Igrač " + client.getClientName() + " ne odgovara " + Heartbeat.TIMEOUT_MS + " ms - odspajam");
+                    client.abort();
+                    removeClient(client);
+                } else {
+                    client.send(ping);
+                }
+            }
+        }
+    }
+
+    private void expireAwayPlayers() {
+        long grace = NetworkConstants.RECONNECT_GRACE_MS * 1_000_000;
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> away : awayPlayers.entrySet()) {
+            String name = away.getKey();
+            if (now - away.getValue() > grace && awayPlayers.remove(name, away.getValue())) {
+                sessions.values().remove(name);
+                notifyStatus("Igrač " + name + " se nije vratio. Preostalo: " + connectedClients.size());
+                broadcast(GameMessage.disconnect(name));
+            }
+        }
+    }
+
+    void removeClient(ClientConnection client) {
+        pendingClients.remove(client);
+        spectators.remove(client);
         if (connectedClients.remove(client)) {
+            String name = client.getClientName();
+            if (gameStarted && sessions.containsValue(name)) {
+                awayPlayers.put(name, System.nanoTime());
+                notifyStatus("Igrač " + name + " je izgubio vezu - čekam ponovno spajanje");
+                return;
+            }
+            sessions.values().remove(name);
+
             notifyStatus("Igrač isključen. Preostalo: " + connectedClients.size());
 
             // Ako je igra u tijeku i igrač se isključio, notify ostale
@@ -181,12 +422,27 @@ public class GameServer extends Thread {
 
     public void shutdown() {
         running = false;
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+        }
 
         // Zatvori sve klijentske konekcije
-        for (ClientHandler client : connectedClients) {
+        for (ClientConnection client : connectedClients) {
+            client.close();
+        }
+        for (ClientConnection client : pendingClients) {
             client.close();
         }
         connectedClients.clear();
+        pendingClients.clear();
+        spectators.close();
+
+        if (nioTransport != null) {
+            nioTransport.close();
+        }
+        if (connectionExecutor != null) {
+            connectionExecutor.shutdownNow();
+        }
 
         // Zatvori server socket
         if (serverSocket != null && !serverSocket.isClosed()) {
@@ -223,12 +479,33 @@ public class GameServer extends Thread {
         return port;
     }
 
+    public ServerTransport getTransport() {
+        return transport;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
     public int getConnectedPlayersCount() {
         return connectedClients.size();
     }
 
+    public int getSpectatorCount() {
+        return spectators.getSpectatorCount();
+    }
+
+    // RTT po igraču u ms (-1 dok ne stigne prvi PONG)
+    public Map<String, Long> getRttMillis() {
+        Map<String, Long> rtt = new LinkedHashMap<>();
+        for (ClientConnection client : connectedClients) {
+            rtt.put(client.getClientName(), client.getHeartbeat().getRttMillis());
+        }
+        return rtt;
+    }
+
     public boolean isRunning() {
-        return running;
+        return running && (nioTransport == null || nioTransport.isRunning());
     }
 
     public boolean isGameStarted() {
@@ -0,0 +1,443 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.core.DiceRoller;
+import hr.ipicek.jamb.core.DiceState;
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.core.SeededDiceRoller;
+import hr.ipicek.jamb.model.ScoreCategory;
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.GameStateSequencer;
+import hr.ipicek.jamb.network.protocol.GameStateUpdate;
+import hr.ipicek.jamb.network.protocol.MessageType;
+import hr.ipicek.jamb.network.protocol.PlayerMove;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+ // Jedan stol na dedicated serveru - headless verzija host logike iz NetworkGameEngine-a.
+ // Stanje igre drži GameCore, a svaki stol ima svoj lock pa se stolovi ne blokiraju međusobno.
+ // Lock je ReentrantLock jer se pod njim piše u socket - synchronized bi pinao virtual thread na carrier.
+final class GameTable {
+
+    private static final ScoreCategory[] CATEGORIES = ScoreCategory.values();
+
+    enum State { WAITING, IN_PROGRESS, FINISHED }
+
+    private final String gameId;
+    private final int maxPlayers;
+    private final TableServer server;
+
+    private final List<ClientConnection> seats = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    // Token sesije po mjestu - s njim se igrač vraća za stol nakon prekida veze (RECONNECT_REQUEST)
+    private final List<String> tokens = new ArrayList<>();
+    // Igrači kojima je pukla veza usred igre: mjesto (seats) je null dok se ne vrate ili ne istekne grace
+    private final Map<String, Long> awaySince = new HashMap<>();
+    private final ReplayBuffer replay = new ReplayBuffer(NetworkConstants.REPLAY_BUFFER_SIZE);
+    private final SpectatorHub spectators;
+    private GameCore core;
+    private final GameStateSequencer sequencer = new GameStateSequencer();
+    private final SnapshotCache snapshotCache = new SnapshotCache();
+    private State state = State.WAITING;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    GameTable(String gameId, int maxPlayers, TableServer server) {
+        this.gameId = gameId;
+        this.maxPlayers = maxPlayers;
+        this.server = server;
+        this.spectators = new SpectatorHub(gameId);
+    }
+
+    // @return false ako je stol gotov ili ima previše gledatelja
+    boolean spectate(ClientConnection client) {
+        lock.lock();
+        try {
+            if (state == State.FINISHED || !spectators.add(client)) {
+                client.sendMessage(error("Gledanje ovog stola nije moguće"));
+                return false;
+            }
+            Logger.Server.debug("Stol " + gameId + ": novi gledatelj " + client.getClientName()
+                    + " (" + spectators.getSpectatorCount() + ")");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeSpectator(ClientConnection client) {
+        spectators.remove(client);
+    }
+
+    void closeSpectators() {
+        spectators.close();
+    }
+
+    // @return false ako igrač ne može sjesti (stol pun, igra počela ili ime zauzeto)
+    boolean join(ClientConnection client, String playerName) {
+        lock.lock();
+        try {
+            if (state != State.WAITING || seats.size() >= maxPlayers) {
+                client.sendMessage(error("Stol nije slobodan"));
+                return false;
+            }
+            if (playerName == null || names.contains(playerName)) {
+                client.sendMessage(error("Ime " + playerName + " je već zauzeto za ovim stolom"));
+                return false;
+            }
+
+            // Novi igrač prvo dozna tko već sjedi, a onda svi (i on) dobiju njegov PLAYER_JOINED
+            for (String name : names) {
+                client.sendMessage(GameMessage.playerJoined(name).withGameId(gameId));
+            }
+            String token = UUID.randomUUID().toString();
+            seats.add(client);
+            names.add(playerName);
+            tokens.add(token);
+            client.sendMessage(GameMessage.session(token).withGameId(gameId));
+            broadcast(GameMessage.playerJoined(playerName).withGameId(gameId));
+
+            Logger.Server.debug("Stol " + gameId + ": " + playerName + " sjeo (" + seats.size() + "/" + maxPlayers + ")");
+            server.onTableChanged(this);
+
+            if (seats.size() == maxPlayers) {
+                start();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void handle(GameMessage message, ClientConnection sender) {
+        if (message.getType() == null) return;
+        lock.lock();
+        try {
+            switch (message.getType()) {
+                case GAME_START -> handleStartRequest(sender);
+                case ROLL_REQUEST -> handleRoll(sender);
+                case DICE_HOLD_TOGGLE -> handleHoldToggle(message, sender);
+                case SCORE_APPLY_REQUEST -> handleScoreApply(message, sender);
+                case SYNC_REQUEST -> handleSyncRequest(sender);
+                case CHAT_MESSAGE -> broadcastExcept(message.withGameId(gameId), sender);
+                case DISCONNECT -> removeSeat(seats.indexOf(sender));
+                default -> Logger.Server.debug("Stol " + gameId + " ignorira poruku: " + message.getType());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Veza je pukla (EOF, greška ili heartbeat) - usred igre se mjesto čuva RECONNECT_GRACE_MS
+    void leave(ClientConnection client) {
+        lock.lock();
+        try {
+            int seat = seats.indexOf(client);
+            if (seat < 0) return;
+
+            if (state == State.IN_PROGRESS) {
+                seats.set(seat, null);
+                awaySince.put(names.get(seat), System.nanoTime());
+                Logger.Server.info("Stol " + gameId + ": " + names.get(seat) + " je izgubio vezu, čekam ponovno spajanje");
+                return;
+            }
+            removeSeat(seat);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Igrač je otišao (DISCONNECT ili istekao grace)
+    private void removeSeat(int seat) {
+        if (seat < 0) return;
+
+        String name = names.get(seat);
+        seats.remove(seat);
+        names.remove(seat);
+        tokens.remove(seat);
+        awaySince.remove(name);
+        broadcast(GameMessage.disconnect(name).withGameId(gameId));
+
+        // Kao i kod igre koju hosta igrač - odlazak igrača prekida igru u tijeku
+        if (state == State.IN_PROGRESS || seats.isEmpty()) {
+            state = State.FINISHED;
+            awaySince.clear();
+            spectators.finish();
+        }
+        server.onTableChanged(this);
+    }
+
+    // Nastavak sesije: nova konekcija preuzima mjesto i dobiva samo propuštene delte (ili snapshot ako je previše zaostala).
+    // Stara konekcija možda još nije otkrivena kao mrtva - zatvara se bez DISCONNECT-a.
+    // @return false ako token ne vrijedi ili igra više nije u tijeku
+    boolean resume(ClientConnection client, GameMessage message) {
+        lock.lock();
+        try {
+            var data = message.getPayloadAs(GameMessage.ReconnectData.class);
+            int seat = data != null ? tokens.indexOf(data.sessionToken()) : -1;
+            if (seat < 0 || state != State.IN_PROGRESS) {
+                client.sendMessage(error("Sesija ne postoji ili je istekla"));
+                return false;
+            }
+
+            ClientConnection old = seats.set(seat, client);
+            if (old != null) {
+                old.abort();
+            }
+            awaySince.remove(names.get(seat));
+            client.sendMessage(GameMessage.session(tokens.get(seat)).withGameId(gameId));
+
+            long last = data.lastSequence();
+            if (last != sequencer.getSequence()) {
+                List<EncodedMessage> missed = replay.since(last);
+                if (missed != null) {
+                    missed.forEach(client::send);
+                } else {
+                    client.send(snapshotCache.get(sequencer.getSequence(),
+                            () -> new GameMessage(MessageType.SYNC_RESPONSE, "SYSTEM", createSnapshot()).withGameId(gameId)));
+                }
+            }
+            Logger.Server.info("Stol " + gameId + ": " + names.get(seat) + " se vratio (od verzije " + last + ")");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Zove ga TableServer iz heartbeat ticka - igrač koji se nije vratio na vrijeme napušta igru
+    void expireSessions() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long grace = NetworkConstants.RECONNECT_GRACE_MS * 1_000_000;
+            for (String name : List.copyOf(awaySince.keySet())) {
+                Long since = awaySince.get(name);
+                if (since != null && now - since > grace) {
+                    Logger.Server.info("Stol " + gameId + ": " + name + " se nije vratio na vrijeme");
+                    removeSeat(names.indexOf(name));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Prvi igrač za stolom može pokrenuti igru i prije nego se stol napuni
+    private void handleStartRequest(ClientConnection sender) {
+        if (state != State.WAITING || seats.indexOf(sender) != 0) return;
+        if (seats.size() < NetworkConstants.MIN_PLAYERS) {
+            sender.sendMessage(error("Potrebno je minimalno " + NetworkConstants.MIN_PLAYERS + " igrača!"));
+            return;
+        }
+        start();
+    }
+
+    private void start() {
+        SeededDiceRoller roller = DiceRoller.seeded(ThreadLocalRandom.current().nextLong());
+        Logger.Server.info("Stol " + gameId + " počinje, seed kockica: " + roller.getSeed());
+
+        core = new GameCore(names.size(), roller);
+        core.start();
+        state = State.IN_PROGRESS;
+
+        broadcast(new GameMessage(MessageType.GAME_START, "SYSTEM", new ArrayList<>(names)).withGameId(gameId));
+        // Početni snapshot - od njega klijenti broje sekvencu delta updatea
+        broadcast(GameMessage.gameStateUpdate(createSnapshot()).withGameId(gameId));
+        server.onTableChanged(this);
+    }
+
+    // Klijent je vidio rupu u sekvenci - dobiva puno stanje samo on (kodirano jednom po verziji)
+    private void handleSyncRequest(ClientConnection sender) {
+        if (state != State.IN_PROGRESS || !seats.contains(sender)) return;
+        sender.send(snapshotCache.get(sequencer.getSequence(),
+                () -> new GameMessage(MessageType.SYNC_RESPONSE, "SYSTEM", createSnapshot()).withGameId(gameId)));
+    }
+
+    private void handleRoll(ClientConnection sender) {
+        if (!isCurrentPlayer(sender)) return;
+
+        if (!core.roll()) {
+            sender.sendMessage(new GameMessage(MessageType.INVALID_MOVE, "SYSTEM", "Iskoristili ste sva bacanja!")
+                    .withGameId(gameId));
+            return;
+        }
+        broadcastState(createDelta(-1, -1));
+    }
+
+    private void handleHoldToggle(GameMessage message, ClientConnection sender) {
+        if (!isCurrentPlayer(sender)) return;
+
+        var data = message.getPayloadAs(GameMessage.DiceHoldData.class);
+        if (data == null || data.dieIndex() < 0 || data.dieIndex() >= DiceState.DICE_COUNT) return;
+
+        core.getDice().setHeld(data.dieIndex(), data.held());
+        broadcastState(createDelta(-1, -1));
+    }
+
+    private void handleScoreApply(GameMessage message, ClientConnection sender) {
+        if (!isCurrentPlayer(sender)) return;
+
+        PlayerMove move = message.getPayloadAs(PlayerMove.class);
+        if (move == null || move.category() == null) return;
+
+        int player = core.getCurrentPlayer();
+        int category = move.category().ordinal();
+        if (core.applyScore(category) < 0) {
+            sender.sendMessage(new GameMessage(MessageType.INVALID_MOVE, "SYSTEM", "Kategorija je već popunjena")
+                    .withGameId(gameId));
+            return;
+        }
+
+        broadcastState(createDelta(player, category));
+
+        if (core.isGameOver()) {
+            int winner = winnerIndex();
+            broadcast(GameMessage.gameOver(names.get(winner), core.getCard(winner).total()).withGameId(gameId));
+            state = State.FINISHED;
+            spectators.finish();
+            server.onTableChanged(this);
+        }
+    }
+
+    // Samo igrač na potezu smije mijenjati stanje
+    private boolean isCurrentPlayer(ClientConnection sender) {
+        if (state != State.IN_PROGRESS) return false;
+        if (seats.indexOf(sender) != core.getCurrentPlayer()) {
+            sender.sendMessage(new GameMessage(MessageType.INVALID_MOVE, "SYSTEM", "Nije vaš potez!").withGameId(gameId));
+            return false;
+        }
+        return true;
+    }
+
+    // Isto kao na hostu: delta nosi samo promijenjene kockice/held/potez i score igrača koji je upisao
+    private GameStateUpdate createDelta(int scoredPlayer, int scoredCategory) {
+        Map<String, Map<ScoreCategory, Integer>> scoreSheets = Map.of();
+        Map<String, Integer> totalScores = Map.of();
+        if (scoredPlayer >= 0) {
+            ScoreCard card = core.getCard(scoredPlayer);
+            String name = names.get(scoredPlayer);
+            scoreSheets = Map.of(name, Map.of(CATEGORIES[scoredCategory], card.getScore(scoredCategory)));
+            totalScores = Map.of(name, card.total());
+        }
+
+        int current = core.getCurrentPlayer();
+        return sequencer.delta(diceValues(), diceHeld(), core.getRollCount(), current, names.get(current),
+                scoreSheets, totalScores, core.isGameOver(), winnerName());
+    }
+
+    private GameStateUpdate createSnapshot() {
+        Map<String, Map<ScoreCategory, Integer>> scoreSheets = new HashMap<>();
+        Map<String, Integer> totalScores = new HashMap<>();
+        for (int p = 0; p < names.size(); p++) {
+            ScoreCard card = core.getCard(p);
+            Map<ScoreCategory, Integer> scores = new EnumMap<>(ScoreCategory.class);
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                if (card.isFilled(c)) scores.put(CATEGORIES[c], card.getScore(c));
+            }
+            scoreSheets.put(names.get(p), scores);
+            totalScores.put(names.get(p), card.total());
+        }
+
+        int current = core.getCurrentPlayer();
+        return sequencer.snapshot(diceValues(), diceHeld(), core.getRollCount(), current, names.get(current),
+                scoreSheets, totalScores, core.isGameOver(), winnerName());
+    }
+
+    private List<Integer> diceValues() {
+        DiceState dice = core.getDice();
+        List<Integer> values = new ArrayList<>(DiceState.DICE_COUNT);
+        for (int i = 0; i < DiceState.DICE_COUNT; i++) {
+            values.add(dice.getValue(i));
+        }
+        return values;
+    }
+
+    private List<Boolean> diceHeld() {
+        DiceState dice = core.getDice();
+        List<Boolean> held = new ArrayList<>(DiceState.DICE_COUNT);
+        for (int i = 0; i < DiceState.DICE_COUNT; i++) {
+            held.add(dice.isHeld(i));
+        }
+        return held;
+    }
+
+    private String winnerName() {
+        return core.isGameOver() ? names.get(winnerIndex()) : null;
+    }
+
+    private int winnerIndex() {
+        int best = 0;
+        for (int i = 1; i < names.size(); i++) {
+            if (core.getCard(i).total() > core.getCard(best).total()) best = i;
+        }
+        return best;
+    }
+
+    private void broadcast(GameMessage message) {
+        broadcastExcept(message, null);
+    }
+
+    // Delta ide i u replay buffer - isti okvir dobiju i igrači koji se kasnije vrate
+    private void broadcastState(GameStateUpdate delta) {
+        EncodedMessage encoded = new EncodedMessage(GameMessage.gameStateUpdate(delta).withGameId(gameId));
+        replay.add(delta.sequence(), encoded);
+        fanOut(encoded, null);
+        spectators.publish(encoded.message());
+    }
+
+    private void broadcastExcept(GameMessage message, ClientConnection except) {
+        fanOut(new EncodedMessage(message), except);
+        spectators.publish(message);
+    }
+
+    // Jedno kodiranje po poruci; zagušeni klijent se odspaja asinkrono pa se seats ne mijenja usred petlje.
+    // Mjesta igrača bez veze (null) se preskaču
+    private void fanOut(EncodedMessage encoded, ClientConnection except) {
+        for (ClientConnection client : seats) {
+            if (client != null && client != except) {
+                client.send(encoded);
+            }
+        }
+    }
+
+    private GameMessage error(String text) {
+        return GameMessage.error(text).withGameId(gameId);
+    }
+
+    // Getteri
+
+    String getGameId() {
+        return gameId;
+    }
+
+    int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    int getPlayerCount() {
+        lock.lock();
+        try {
+            return seats.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.MessageType;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+ // Heartbeat jedne konekcije: kad je zadnji put nešto stiglo i RTT zadnjeg PING/PONG-a.
+ // PING/PONG se obrađuju na razini konekcije i nikad ne dolaze do logike igre.
+ // Svi serveri i klijenti u procesu dijele jedan scheduler thread - tick samo prođe kroz konekcije.
+final class Heartbeat {
+
+    // -Djamb.heartbeatMs / -Djamb.heartbeatTimeoutMs
+    static final long INTERVAL_MS = Long.getLong("jamb.heartbeatMs", NetworkConstants.HEARTBEAT_INTERVAL_MS);
+    static final long TIMEOUT_MS = Long.getLong("jamb.heartbeatTimeoutMs", NetworkConstants.READ_TIMEOUT);
+
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Heartbeat-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long lastReceived = System.nanoTime();
+    private volatile long rttNanos = -1;
+
+    // Tick se vrti dok se ne otkaže vraćeni future (shutdown servera / disconnect klijenta)
+    static ScheduledFuture<?> schedule(Runnable tick) {
+        return SCHEDULER.scheduleAtFixedRate(tick, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Payload je trenutak slanja - PONG ga vraća nepromijenjenog pa se RTT računa bez stanja po pingu
+    static GameMessage ping(String senderName) {
+        return new GameMessage(MessageType.PING, senderName, System.nanoTime());
+    }
+
+    // Bilo koja poruka (ne samo PONG) znači da je peer živ
+    void onReceived() {
+        lastReceived = System.nanoTime();
+    }
+
+    // @return true ako je poruka bila PING/PONG i ne ide dalje
+    boolean handle(GameMessage message, String localName, Consumer<GameMessage> reply) {
+        if (message.getType() == MessageType.PING) {
+            reply.accept(new GameMessage(MessageType.PONG, localName, message.getPayload()));
+            return true;
+        }
+        if (message.getType() == MessageType.PONG) {
+            if (message.getPayload() instanceof Long sentAt) {
+                rttNanos = System.nanoTime() - sentAt;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    boolean isTimedOut() {
+        return System.nanoTime() - lastReceived > TIMEOUT_NANOS;
+    }
+
+    // -1 dok ne stigne prvi PONG
+    long getRttMillis() {
+        long rtt = rttNanos;
+        return rtt < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(rtt);
+    }
+}
@@ -0,0 +1,237 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+ // Klijentska konekcija na NIO transportu. Čitanje i pisanje radi isključivo event loop thread,
+ // ostali threadovi samo stavljaju okvire u red. Idle konekcija ne drži nikakve buffere.
+final class NioConnection implements ClientConnection {
+
+    private final SocketChannel channel;
+    private final NioTransport.EventLoop loop;
+    private final NioTransport transport;
+    private SelectionKey key;
+
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() je O(n) pa se dubina reda broji posebno
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Heartbeat heartbeat = new Heartbeat();
+
+    // Stanje djelomično primljenog okvira (samo kad okvir stigne u više komada)
+    private int header;
+    private int headerBytes;
+    private byte[] partial;
+    private int partialPos;
+
+    private volatile String clientName;
+    private volatile WireFormat wireFormat = WireFormat.JAVA;
+
+    NioConnection(SocketChannel channel, NioTransport.EventLoop loop, NioTransport transport) {
+        this.channel = channel;
+        this.loop = loop;
+        this.transport = transport;
+        this.clientName = "Player-" + channel.socket().getPort(); // Privremeno ime
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    // Parsira okvire iz pročitanih bajtova; cijeli okviri se dekodiraju iz scratch polja event loopa
+    void onBytes(ByteBuffer src, byte[] scratch) throws IOException {
+        while (src.hasRemaining()) {
+            if (partial == null) {
+                while (headerBytes < FrameCodec.HEADER_SIZE && src.hasRemaining()) {
+                    header = (header << 8) | (src.get() & 0xFF);
+                    headerBytes++;
+                }
+                if (headerBytes < FrameCodec.HEADER_SIZE) return;
+
+                int length = FrameCodec.checkLength(header);
+                header = 0;
+                headerBytes = 0;
+
+                if (src.remaining() >= length) {
+                    src.get(scratch, 0, length);
+                    deliver(FrameCodec.decode(scratch, 0, length));
+                    continue;
+                }
+                partial = new byte[length];
+                partialPos = 0;
+            }
+
+            int n = Math.min(src.remaining(), partial.length - partialPos);
+            src.get(partial, partialPos, n);
+            partialPos += n;
+            if (partialPos == partial.length) {
+                byte[] body = partial;
+                partial = null;
+                deliver(FrameCodec.decode(body, 0, body.length));
+            }
+        }
+    }
+
+    private void deliver(GameMessage message) {
+        heartbeat.onReceived();
+        if (heartbeat.handle(message, "SYSTEM", this::sendMessage)) return;
+
+        if (WireFormat.isHandshake(message)) {
+            clientName = message.getSenderName();
+            wireFormat = WireFormat.negotiate(message);
+        }
+        transport.deliver(message, this);
+    }
+
+    @Override
+    public boolean send(EncodedMessage message) {
+        if (closing.get()) return false;
+
+        if (queueDepth.get() >= NetworkConstants.OUTBOUND_HIGH_WATER_MARK) {
+            Logger.Server.warn("Klijent " + clientName + " ne čita (" + queueDepth.get() + " poruka u redu) - odspajam");
+            // closeNow na event loopu - pozivatelj (npr. broadcast pod lockom stola) ne smije dobiti onClose usred petlje
+            closing.set(true);
+            loop.execute(this::closeNow);
+            return false;
+        }
+
+        try {
+            // Dijeljeni okvir se samo omota - pozicija je po konekciji, polje se ne mijenja
+            outbound.add(ByteBuffer.wrap(message.frame(wireFormat)));
+            queueDepth.incrementAndGet();
+        } catch (IOException e) {
+            Logger.Server.error("Greška pri kodiranju poruke za " + clientName + ": " + e.getMessage());
+            return false;
+        }
+
+        // Jedan flush task po rafalu poruka, ne po poruci
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flush);
+        }
+        return true;
+    }
+
+    // Skuplja okvire iz reda u direct buffer event loopa i piše ih jednim write pozivom
+    void flush() {
+        if (closed.get()) return;
+
+        ByteBuffer writeBuffer = loop.writeBuffer();
+        try {
+            while (true) {
+                writeBuffer.clear();
+                for (ByteBuffer frame : outbound) {
+                    if (!writeBuffer.hasRemaining()) break;
+                    ByteBuffer chunk = frame.duplicate();
+                    if (chunk.remaining() > writeBuffer.remaining()) {
+                        chunk.limit(chunk.position() + writeBuffer.remaining());
+                    }
+                    writeBuffer.put(chunk);
+                }
+                writeBuffer.flip();
+
+                if (!writeBuffer.hasRemaining()) {
+                    // Red je prazan - spusti zastavicu, pa provjeri nije li netko u međuvremenu dodao okvir
+                    if (closing.get()) {
+                        closeNow();
+                        return;
+                    }
+                    key.interestOps(SelectionKey.OP_READ);
+                    flushScheduled.set(false);
+                    if (outbound.isEmpty() || !flushScheduled.compareAndSet(false, true)) return;
+                    continue;
+                }
+
+                consume(channel.write(writeBuffer));
+
+                if (writeBuffer.hasRemaining()) {
+                    // Socket buffer pun - nastavi kad selector javi OP_WRITE
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            closeNow();
+        }
+    }
+
+    private void consume(int written) {
+        while (written > 0) {
+            ByteBuffer head = outbound.peek();
+            int n = Math.min(written, head.remaining());
+            head.position(head.position() + n);
+            written -= n;
+            if (!head.hasRemaining()) {
+                outbound.poll();
+                queueDepth.decrementAndGet();
+            }
+        }
+    }
+
+    // Kao kod ClientHandler-a: poruke koje su već u redu se još pošalju, pa se konekcija zatvara
+    @Override
+    public void close() {
+        if (closed.get() || !closing.compareAndSet(false, true)) return;
+        loop.execute(this::flush);
+    }
+
+    // Odmah, bez slanja reda - peer je otišao, greška ili gašenje event loopa
+    // Kao kod high water marka - samo event loop smije zatvoriti kanal
+    @Override
+    public void abort() {
+        closing.set(true);
+        loop.execute(this::closeNow);
+    }
+
+    void closeNow() {
+        closing.set(true);
+        if (!closed.compareAndSet(false, true)) return;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        outbound.clear();
+        queueDepth.set(0);
+        transport.closed(this);
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    @Override
+    public String getClientName() {
+        return clientName;
+    }
+}
@@ -0,0 +1,242 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+
+ // Non-blocking transport: jedan acceptor + mali fiksni broj event loop threadova sa Selector-om.
+ // Konekcije se raspoređuju round-robin, a callbackovi su isti kao kod ClientHandler-a.
+final class NioTransport {
+
+    static final int DEFAULT_EVENT_LOOPS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private final int port;
+    private final EventLoop[] loops;
+    private final Consumer<ClientConnection> onAccept;
+    private final BiConsumer<GameMessage, ClientConnection> onMessage;
+    private final Consumer<ClientConnection> onClose;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private int nextLoop;
+
+    NioTransport(int port, int eventLoops, Consumer<ClientConnection> onAccept,
+                 BiConsumer<GameMessage, ClientConnection> onMessage, Consumer<ClientConnection> onClose) {
+        this.port = port;
+        this.loops = new EventLoop[eventLoops];
+        this.onAccept = onAccept;
+        this.onMessage = onMessage;
+        this.onClose = onClose;
+    }
+
+    // Blokira pozivajući thread na accept() dok se transport ne zatvori
+    void run() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), NetworkConstants.SERVER_BACKLOG);
+        running = true;
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].start();
+        }
+
+        try {
+            while (running) {
+                SocketChannel channel = serverChannel.accept();
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                } catch (IOException e) {
+                    Logger.Server.error("Greška pri prihvaćanju klijenta: " + e.getMessage());
+                    channel.close();
+                    continue;
+                }
+
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                loop.register(new NioConnection(channel, loop, this));
+            }
+        } catch (ClosedChannelException e) {
+            // Normalno gašenje - close() je zatvorio server channel
+        } finally {
+            close();
+        }
+    }
+
+    void deliver(GameMessage message, NioConnection connection) {
+        onMessage.accept(message, connection);
+    }
+
+    void closed(NioConnection connection) {
+        connections.decrementAndGet();
+        onClose.accept(connection);
+    }
+
+    void close() {
+        running = false;
+        try {
+            if (serverChannel != null) serverChannel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) loop.shutdown();
+        }
+    }
+
+    int getConnectionCount() {
+        return connections.get();
+    }
+
+    // true tek kad je server channel bindan i event loopovi pokrenuti
+    boolean isRunning() {
+        return running;
+    }
+
+
+    // Jedan selector thread; read i write bufferi su direct i dijele ih sve konekcije ovog loopa
+    final class EventLoop extends Thread {
+
+        private final Selector selector;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(NetworkConstants.BUFFER_SIZE);
+        private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(NetworkConstants.BUFFER_SIZE);
+        private final byte[] scratch = new byte[NetworkConstants.MAX_MESSAGE_SIZE];
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            setDaemon(true);
+            setName("NioEventLoop-" + index);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        ByteBuffer writeBuffer() {
+            return writeBuffer;
+        }
+
+        void register(NioConnection connection) {
+            execute(() -> {
+                try {
+                    SelectionKey key = connection.channel().register(selector, SelectionKey.OP_READ, connection);
+                    connection.attach(key);
+                    connections.incrementAndGet();
+                    onAccept.accept(connection);
+                } catch (IOException e) {
+                    Logger.Server.error("Greška pri registraciji konekcije: " + e.getMessage());
+                    try {
+                        connection.channel().close();
+                    } catch (IOException ignored) {
+                        // Ignore
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    runTasks();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+
+                        if (!key.isValid()) continue;
+                        try {
+                            if (key.isReadable()) read(connection);
+                            if (key.isValid() && key.isWritable()) connection.flush();
+                        } catch (RuntimeException e) {
+                            // Greška u obradi jedne poruke (ili u callbacku) zatvara samo tu konekciju, ne cijeli loop
+                            Logger.Server.error("Greška pri obradi konekcije, zatvaram je: " + e);
+                            closeQuietly(connection);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    Logger.Server.error("Event loop greška: " + e.getMessage());
+                }
+            } finally {
+                for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                    ((NioConnection) key.attachment()).closeNow();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Logger.Server.error("Greška u tasku event loopa: " + e);
+                }
+            }
+        }
+
+        // I onClose callback može baciti iznimku - konekcija je tada već zatvorena, loop nastavlja
+        private void closeQuietly(NioConnection connection) {
+            try {
+                connection.closeNow();
+            } catch (RuntimeException e) {
+                Logger.Server.error("Greška pri zatvaranju konekcije: " + e);
+            }
+        }
+
+        private void read(NioConnection connection) {
+            try {
+                while (true) {
+                    readBuffer.clear();
+                    int n = connection.channel().read(readBuffer);
+                    if (n < 0) {
+                        connection.closeNow();
+                        return;
+                    }
+                    if (n == 0) return;
+
+                    readBuffer.flip();
+                    connection.onBytes(readBuffer, scratch);
+                    if (connection.isClosed()) return;
+                }
+            } catch (IOException e) {
+                connection.closeNow();
+            }
+        }
+
+        void shutdown() {
+            selector.wakeup();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package hr.ipicek.jamb.network.socket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+ // Zadnjih N delta updatea (već kodiranih) za klijente koji se vraćaju nakon prekida veze.
+ // Klijent koji je propustio više nego što stane u buffer dobiva snapshot. Nije thread-safe - vlasnik drži svoj lock.
+final class ReplayBuffer {
+
+    private final EncodedMessage[] messages;
+    private final long[] sequences;
+    private int next;
+    private int size;
+
+    ReplayBuffer(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Kapacitet mora biti barem 1");
+        this.messages = new EncodedMessage[capacity];
+        this.sequences = new long[capacity];
+    }
+
+    // Delte dolaze redom (sequence + 1), najstarija se prepisuje
+    void add(long sequence, EncodedMessage message) {
+        messages[next] = message;
+        sequences[next] = sequence;
+        next = (next + 1) % messages.length;
+        if (size < messages.length) size++;
+    }
+
+    // @return delte nakon lastSequence redom (prazno ako klijent ništa nije propustio),
+    // null ako ih buffer više nema pa klijentu treba snapshot
+    List<EncodedMessage> since(long lastSequence) {
+        if (size == 0) return null;
+
+        int oldest = (next - size + messages.length) % messages.length;
+        long newest = sequences[(next - 1 + messages.length) % messages.length];
+        if (lastSequence == newest) return List.of();
+        if (lastSequence + 1 < sequences[oldest] || lastSequence > newest) return null;
+
+        int count = (int) (newest - lastSequence);
+        List<EncodedMessage> missed = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++) {
+            missed.add(messages[(oldest + i) % messages.length]);
+        }
+        return missed;
+    }
+
+    void clear() {
+        Arrays.fill(messages, null);
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,9 @@
+package hr.ipicek.jamb.network.socket;
+
+
+ // Način na koji server drži klijentske konekcije. Wire format (FrameCodec) je isti za sve.
+public enum ServerTransport {
+    THREAD_PER_CLIENT,  // ClientHandler platform thread po konekciji (blocking I/O)
+    VIRTUAL_THREADS,    // ClientHandler virtual thread po konekciji (blocking I/O, bez platform threada)
+    NIO                 // Selector event loopovi, bez threada po konekciji
+}
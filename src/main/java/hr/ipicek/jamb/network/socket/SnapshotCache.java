@@ -0,0 +1,28 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+
+import java.util.function.Supplier;
+
+
+ // Zadnji puni snapshot stanja, kodiran jednom po verziji (sequence).
+ // Svi SYNC_RESPONSE-ovi (resync, kasni ulazak) iste verzije dijele isti okvir; nova verzija ga invalidira.
+final class SnapshotCache {
+
+    private long sequence = -1;
+    private EncodedMessage encoded;
+
+    // snapshot se gradi samo ako verzija nije u cacheu
+    synchronized EncodedMessage get(long sequence, Supplier<GameMessage> snapshot) {
+        if (encoded == null || this.sequence != sequence) {
+            encoded = new EncodedMessage(snapshot.get());
+            this.sequence = sequence;
+        }
+        return encoded;
+    }
+
+    synchronized void clear() {
+        encoded = null;
+        sequence = -1;
+    }
+}
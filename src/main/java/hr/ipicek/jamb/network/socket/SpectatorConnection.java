@@ -0,0 +1,37 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.util.NetworkConstants;
+
+
+ // Gledatelj - read-only konekcija koju hrani SpectatorHub. Stanje uvijek dobiva kao puni snapshot,
+ // pa spori gledatelj (pun red) smije preskočiti verziju - idući tick dobiva najnoviju.
+final class SpectatorConnection {
+
+    private final ClientConnection connection;
+    // Verzija stanja koja je zadnja stavljena u red ovom gledatelju
+    private long sentSequence = -1;
+
+    SpectatorConnection(ClientConnection connection) {
+        this.connection = connection;
+    }
+
+    // force = prije događaja (GAME_OVER...) gledatelj mora imati stanje i ako je zagušen
+    void offerState(long sequence, EncodedMessage snapshot, boolean force) {
+        if (sequence == sentSequence) return;
+        if (!force && connection.getQueueDepth() >= NetworkConstants.SPECTATOR_MAX_PENDING) {
+            return;
+        }
+        if (connection.send(snapshot)) {
+            sentSequence = sequence;
+        }
+    }
+
+    // Događaji se ne preskaču - ima ih malo, a high water mark konekcije i dalje vrijedi
+    void sendEvent(EncodedMessage event) {
+        connection.send(event);
+    }
+
+    ClientConnection connection() {
+        return connection;
+    }
+}
@@ -0,0 +1,206 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.GameStateUpdate;
+import hr.ipicek.jamb.network.protocol.MessageType;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+ // Odgođeni stream igre za gledatelje, odvojen od puta prema igračima: igra samo doda poruku u red (publish),
+ // a kodiranje i slanje radi zajednički spectator thread svakih SPECTATOR_TICK_MS.
+ // Delte se primjenjuju na puno stanje pa gledatelj uvijek dobiva snapshot najnovije verzije, jedan po ticku.
+ // Stanje huba (view, spectators) dira samo spectator thread.
+final class SpectatorHub {
+
+    // -Djamb.spectatorDelayMs
+    static final long DELAY_MS = Long.getLong("jamb.spectatorDelayMs", NetworkConstants.SPECTATOR_DELAY_MS);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Spectator-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Pending(long releaseAt, GameMessage message) {}
+
+    private final String gameId;
+    private final long delayNanos;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    // Za ostale threadove (rutiranje poruka, heartbeat) - lista ispod je samo za spectator thread
+    private final Set<ClientConnection> members = ConcurrentHashMap.newKeySet();
+    private final List<SpectatorConnection> spectators = new ArrayList<>();
+    private final ScheduledFuture<?> task;
+    private volatile boolean finishing;
+
+    private GameMessage startMessage;
+    private GameStateUpdate view;
+    private EncodedMessage latest;
+    private long latestSequence = -1;
+
+    // gameId je null za igru koju hosta igrač (GameServer)
+    SpectatorHub(String gameId) {
+        this(gameId, DELAY_MS);
+    }
+
+    SpectatorHub(String gameId, long delayMs) {
+        this.gameId = gameId;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        this.task = SCHEDULER.scheduleAtFixedRate(this::tick, NetworkConstants.SPECTATOR_TICK_MS,
+                NetworkConstants.SPECTATOR_TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Zove se s puta prema igračima - samo stavlja poruku u red, bez kodiranja
+    void publish(GameMessage message) {
+        switch (message.getType()) {
+            case GAME_START, GAME_STATE_UPDATE, GAME_OVER, DISCONNECT ->
+                    pending.add(new Pending(System.nanoTime() + delayNanos, message));
+            default -> {
+                // Chat, zahtjevi i ostalo ne idu gledateljima
+            }
+        }
+    }
+
+    // @return false ako je dosegnut MAX_SPECTATORS
+    boolean add(ClientConnection connection) {
+        if (finishing || members.size() >= NetworkConstants.MAX_SPECTATORS) return false;
+        members.add(connection);
+
+        SCHEDULER.execute(() -> {
+            if (!members.contains(connection)) return; // odspojio se prije nego je dodan
+            SpectatorConnection spectator = new SpectatorConnection(connection);
+            spectators.add(spectator);
+            // Kasni gledatelj prvo dobije GAME_START (redoslijed igrača), pa trenutno odgođeno stanje
+            if (startMessage != null) {
+                spectator.sendEvent(new EncodedMessage(startMessage));
+            }
+            catchUp(spectator, true);
+        });
+        return true;
+    }
+
+    void remove(ClientConnection connection) {
+        if (members.remove(connection)) {
+            SCHEDULER.execute(() -> spectators.removeIf(s -> s.connection() == connection));
+        }
+    }
+
+    boolean contains(ClientConnection connection) {
+        return members.contains(connection);
+    }
+
+    List<ClientConnection> getConnections() {
+        return List.copyOf(members);
+    }
+
+    int getSpectatorCount() {
+        return members.size();
+    }
+
+    // Igra je gotova - gledatelji još dobiju ono što je u redu (odgoda), pa se zatvaraju
+    void finish() {
+        finishing = true;
+    }
+
+    void close() {
+        finishing = true;
+        task.cancel(false);
+        for (ClientConnection connection : members) {
+            connection.close();
+        }
+        members.clear();
+        SCHEDULER.execute(spectators::clear);
+    }
+
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            Pending next;
+            while ((next = pending.peek()) != null && next.releaseAt() - now <= 0) {
+                pending.poll();
+                release(next.message());
+            }
+
+            for (SpectatorConnection spectator : spectators) {
+                catchUp(spectator, false);
+            }
+
+            if (finishing && pending.isEmpty()) {
+                close();
+            }
+        } catch (RuntimeException e) {
+            // Iznimka bi tiho ugasila periodični task
+            Logger.Server.error("Greška u spectator ticku: " + e.getMessage());
+        }
+    }
+
+    private void release(GameMessage message) {
+        GameStateUpdate state = message.getPayloadAs(GameStateUpdate.class);
+        if (state != null) {
+            if (state.snapshot()) {
+                view = state;
+            } else if (view != null) {
+                view = merge(view, state);
+            }
+            return;
+        }
+
+        if (message.getType() == MessageType.GAME_START) {
+            startMessage = message;
+            view = null;
+        }
+        EncodedMessage event = new EncodedMessage(message);
+        for (SpectatorConnection spectator : spectators) {
+            catchUp(spectator, true);
+            spectator.sendEvent(event);
+        }
+    }
+
+    private void catchUp(SpectatorConnection spectator, boolean force) {
+        if (view == null) return;
+        // Jedan snapshot po verziji, isti okvir za sve gledatelje
+        if (latest == null || latestSequence != view.sequence()) {
+            GameMessage snapshot = GameMessage.gameStateUpdate(view);
+            latest = new EncodedMessage(gameId != null ? snapshot.withGameId(gameId) : snapshot);
+            latestSequence = view.sequence();
+        }
+        spectator.offerState(latestSequence, latest, force);
+    }
+
+    // Delta na punom stanju -> novo puno stanje (null u delti = nije se promijenilo)
+    private static GameStateUpdate merge(GameStateUpdate base, GameStateUpdate delta) {
+        Map<String, Map<ScoreCategory, Integer>> sheets = new HashMap<>();
+        base.scoreSheets().forEach((name, scores) -> {
+            Map<ScoreCategory, Integer> copy = new EnumMap<>(ScoreCategory.class);
+            copy.putAll(scores);
+            sheets.put(name, copy);
+        });
+        delta.scoreSheets().forEach((name, scores) ->
+                sheets.computeIfAbsent(name, k -> new EnumMap<>(ScoreCategory.class)).putAll(scores));
+
+        Map<String, Integer> totals = new HashMap<>(base.totalScores());
+        totals.putAll(delta.totalScores());
+
+        return new GameStateUpdate(delta.sequence(), true,
+                delta.diceValues() != null ? delta.diceValues() : base.diceValues(),
+                delta.diceHeld() != null ? delta.diceHeld() : base.diceHeld(),
+                delta.rollCount(), delta.currentPlayerIndex(),
+                delta.currentPlayerName() != null ? delta.currentPlayerName() : base.currentPlayerName(),
+                sheets, totals, delta.gameOver(), delta.winnerName());
+    }
+}
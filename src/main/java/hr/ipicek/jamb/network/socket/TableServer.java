@@ -0,0 +1,390 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+import hr.ipicek.jamb.network.protocol.MessageType;
+import hr.ipicek.jamb.network.rmi.GameInfo;
+import hr.ipicek.jamb.network.rmi.LobbyService;
+import hr.ipicek.jamb.network.rmi.RMIRegistryServer;
+import hr.ipicek.jamb.util.Logger;
+import hr.ipicek.jamb.util.NetworkConstants;
+import hr.ipicek.jamb.util.ThreadUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+ // Dedicated server koji na jednom portu vodi mnogo stolova istovremeno.
+ // Poruke se rutiraju po gameId-u na GameTable, a stolovi se sami registriraju u lobby.
+public class TableServer extends Thread {
+
+    private static final String SERVER_HOST_NAME = "Server";
+
+    private final int port;
+    private final int playersPerTable;
+    private final int minOpenTables;
+    private final LobbyService lobby;
+    private final String serverAddress;
+    private final ServerTransport transport;
+
+    private ServerSocket serverSocket;
+    private NioTransport nioTransport;
+    private ExecutorService connectionExecutor;
+    private final Map<String, GameTable> tables = new ConcurrentHashMap<>();
+    private final Map<ClientConnection, GameTable> seatedClients = new ConcurrentHashMap<>();
+    private final Map<ClientConnection, GameTable> spectators = new ConcurrentHashMap<>();
+    private final Map<String, GameTable.State> publishedStates = new ConcurrentHashMap<>();
+    private final AtomicInteger openTables = new AtomicInteger();
+    // Dopunjavanje slobodnih stolova - zove se i pod lockom GameTable-a, pa ReentrantLock
+    // umjesto synchronized (synchronized bi pinao virtualni thread na carrier)
+    private final ReentrantLock openTablesLock = new ReentrantLock();
+    // Sve otvorene konekcije (i one koje još nisu sjele) - po njima ide heartbeat
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+    private ScheduledFuture<?> heartbeatTask;
+
+    // RMI pozivi prema lobby-u idu na zaseban thread da ne koče obradu poteza
+    private final ExecutorService lobbyExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "TableServer-Lobby-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean running;
+
+    // lobby može biti null - tada se stolovi ne objavljuju
+    public TableServer(int port, int playersPerTable, int minOpenTables, LobbyService lobby, String serverAddress) {
+        this(port, playersPerTable, minOpenTables, lobby, serverAddress, ServerTransport.THREAD_PER_CLIENT);
+    }
+
+    public TableServer(int port, int playersPerTable, int minOpenTables, LobbyService lobby, String serverAddress,
+                       ServerTransport transport) {
+        if (playersPerTable < NetworkConstants.MIN_PLAYERS || playersPerTable > NetworkConstants.MAX_PLAYERS)
+            throw new IllegalArgumentException("Broj igrača mora biti od " + NetworkConstants.MIN_PLAYERS
+                    + " do " + NetworkConstants.MAX_PLAYERS);
+        if (minOpenTables < 1)
+            throw new IllegalArgumentException("Mora postojati barem jedan otvoreni stol");
+
+        this.port = port;
+        this.playersPerTable = playersPerTable;
+        this.minOpenTables = minOpenTables;
+        this.lobby = lobby;
+        this.serverAddress = serverAddress;
+        this.transport = transport;
+        setDaemon(true);
+        setName("TableServer-Thread");
+    }
+
+    @Override
+    public void run() {
+        heartbeatTask = Heartbeat.schedule(this::checkHeartbeats);
+
+        if (transport == ServerTransport.NIO) {
+            runNio();
+            return;
+        }
+
+        if (transport == ServerTransport.VIRTUAL_THREADS) {
+            connectionExecutor = ThreadUtils.newVirtualThreadPerTaskExecutor("ClientHandler-");
+        }
+
+        try {
+            serverSocket = new ServerSocket(port, NetworkConstants.SERVER_BACKLOG);
+            running = true;
+            Logger.Server.info("TableServer pokrenut na portu " + port + " (" + transport + ", " + playersPerTable + " igrača po stolu)");
+
+            ensureOpenTables();
+
+            while (running && !isInterrupted()) {
+                try {
+                    Socket clientSocket = serverSocket.accept();
+                    ClientHandler handler = new ClientHandler(clientSocket, this::onMessageReceived, this::removeClient);
+                    connections.add(handler);
+                    startHandler(handler);
+                } catch (SocketException e) {
+                    if (running) {
+                        Logger.Server.error("Socket greška: " + e.getMessage());
+                    }
+                } catch (IOException e) {
+                    Logger.Server.error("Greška pri prihvaćanju klijenta: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Logger.Server.error("Greška pri pokretanju servera: " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void runNio() {
+        nioTransport = new NioTransport(port, NioTransport.DEFAULT_EVENT_LOOPS,
+                connections::add, this::onMessageReceived, this::removeClient);
+        try {
+            running = true;
+            Logger.Server.info("TableServer pokrenut na portu " + port + " (NIO, " + playersPerTable + " igrača po stolu)");
+            ensureOpenTables();
+            nioTransport.run();
+        } catch (IOException e) {
+            Logger.Server.error("Greška pri pokretanju servera: " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    // Blocking handler po konekciji: na virtual threadu iz executora ili na vlastitom platform threadu
+    private void startHandler(ClientHandler handler) {
+        if (connectionExecutor != null) {
+            connectionExecutor.execute(handler);
+        } else {
+            ThreadUtils.builder("ClientHandler-" + handler.getClientName(), false).start(handler);
+        }
+    }
+
+    // Otvara novi prazan stol i objavljuje ga u lobby-u
+    public String openTable() {
+        String gameId = UUID.randomUUID().toString();
+        GameTable table = new GameTable(gameId, playersPerTable, this);
+        tables.put(gameId, table);
+        publishedStates.put(gameId, GameTable.State.WAITING);
+        openTables.incrementAndGet();
+
+        if (lobby != null) {
+            GameInfo info = new GameInfo(gameId, SERVER_HOST_NAME, serverAddress, port,
+                    0, playersPerTable, GameInfo.GameStatus.WAITING);
+            lobbyExecutor.execute(() -> {
+                try {
+                    lobby.registerGame(info);
+                } catch (RemoteException e) {
+                    Logger.Server.error("Greška pri registraciji stola " + gameId + ": " + e.getMessage());
+                }
+            });
+        }
+        return gameId;
+    }
+
+    private void ensureOpenTables() {
+        openTablesLock.lock();
+        try {
+            while (running && openTables.get() < minOpenTables) {
+                openTable();
+            }
+        } finally {
+            openTablesLock.unlock();
+        }
+    }
+
+    void onMessageReceived(GameMessage message, ClientConnection sender) {
+        // Gledatelji su read-only
+        if (spectators.containsKey(sender)) return;
+
+        GameTable table = seatedClients.get(sender);
+
+        if (table == null) {
+            // Prva poruka mora biti PLAYER_JOINED, RECONNECT_REQUEST ili SPECTATE_REQUEST sa ID-om stola
+            if (!WireFormat.isHandshake(message)) {
+                return;
+            }
+            table = message.getGameId() != null ? tables.get(message.getGameId()) : null;
+            if (table == null) {
+                sender.sendMessage(GameMessage.error("Stol ne postoji: " + message.getGameId()));
+                sender.close();
+                return;
+            }
+            if (message.getType() == MessageType.SPECTATE_REQUEST) {
+                if (table.spectate(sender)) {
+                    spectators.put(sender, table);
+                } else {
+                    sender.close();
+                }
+                return;
+            }
+            boolean seated = message.getType() == MessageType.RECONNECT_REQUEST
+                    ? table.resume(sender, message)
+                    : table.join(sender, message.getSenderName());
+            if (seated) {
+                seatedClients.put(sender, table);
+            } else {
+                sender.close();
+            }
+            return;
+        }
+
+        if (message.getGameId() != null && !message.getGameId().equals(table.getGameId())) {
+            Logger.Server.warn("Poruka za krivi stol od " + sender.getClientName() + ": " + message.getGameId());
+            return;
+        }
+        table.handle(message, sender);
+    }
+
+    // Zove se i iz onClose i iz heartbeata pa mora biti idempotentno
+    void removeClient(ClientConnection client) {
+        if (!connections.remove(client)) return;
+        GameTable watched = spectators.remove(client);
+        if (watched != null) {
+            watched.removeSpectator(client);
+        }
+        GameTable table = seatedClients.remove(client);
+        if (table != null) {
+            table.leave(client);
+        }
+    }
+
+    // Heartbeat tick: mrtva konekcija se zatvara i miče sa stola, ostale dobiju PING.
+    // Usput istječu mjesta igrača koji se nisu vratili na vrijeme
+    private void checkHeartbeats() {
+        tables.values().forEach(GameTable::expireSessions);
+
+        EncodedMessage ping = new EncodedMessage(Heartbeat.ping("SYSTEM"));
+        for (ClientConnection client : connections) {
+            if (client.getHeartbeat().isTimedOut()) {
+                Logger.Server.warn("Klijent " + client.getClientName() + " ne odgovara " + Heartbeat.TIMEOUT_MS + " ms - odspajam");
+                client.abort();
+                removeClient(client);
+            } else {
+                client.send(ping);
+            }
+        }
+    }
+
+    // Zove ga GameTable pod svojim lock-om nakon svake promjene sjedenja ili statusa
+    void onTableChanged(GameTable table) {
+        String gameId = table.getGameId();
+        if (!tables.containsKey(gameId)) return; // stol je već zatvoren
+
+        GameTable.State state = table.getState();
+        int players = table.getPlayerCount();
+        GameTable.State previous = publishedStates.put(gameId, state);
+
+        if (previous == GameTable.State.WAITING && state != GameTable.State.WAITING) {
+            openTables.decrementAndGet();
+        }
+        if (state == GameTable.State.FINISHED) {
+            tables.remove(gameId);
+            publishedStates.remove(gameId);
+        }
+
+        if (lobby != null && previous != GameTable.State.FINISHED) {
+            GameInfo.GameStatus status = switch (state) {
+                case WAITING -> players >= playersPerTable ? GameInfo.GameStatus.FULL : GameInfo.GameStatus.WAITING;
+                case IN_PROGRESS -> GameInfo.GameStatus.IN_PROGRESS;
+                case FINISHED -> GameInfo.GameStatus.FINISHED;
+            };
+            lobbyExecutor.execute(() -> {
+                try {
+                    lobby.updateGameStatus(gameId, players, status);
+                } catch (RemoteException e) {
+                    Logger.Server.error("Greška pri update statusa stola " + gameId + ": " + e.getMessage());
+                }
+            });
+        }
+
+        ensureOpenTables();
+    }
+
+    public void shutdown() {
+        running = false;
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+        }
+
+        for (ClientConnection client : connections) {
+            client.close();
+        }
+        seatedClients.clear();
+
+        spectators.clear();
+        tables.values().forEach(GameTable::closeSpectators);
+        if (lobby != null) {
+            for (String gameId : tables.keySet()) {
+                lobbyExecutor.execute(() -> {
+                    try {
+                        lobby.removeGame(gameId);
+                    } catch (RemoteException e) {
+                        // Ignore - lobby se ionako gasi ili nije dostupan
+                    }
+                });
+            }
+        }
+        tables.clear();
+        lobbyExecutor.shutdown();
+
+        if (nioTransport != null) {
+            nioTransport.close();
+        }
+        if (connectionExecutor != null) {
+            connectionExecutor.shutdownNow();
+        }
+
+        if (serverSocket != null && !serverSocket.isClosed()) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                Logger.Server.error("Greška pri zatvaranju servera: " + e.getMessage());
+            }
+        }
+        Logger.Server.info("TableServer zaustavljen");
+    }
+
+    // Getteri
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    public int getOpenTableCount() {
+        return openTables.get();
+    }
+
+    public int getConnectedPlayersCount() {
+        return seatedClients.size();
+    }
+
+    // Sve otvorene konekcije, uključujući one koje još nisu sjele za stol
+    public int getOpenConnectionCount() {
+        return connections.size();
+    }
+
+    public boolean isRunning() {
+        return running && (nioTransport == null || nioTransport.isRunning());
+    }
+
+    // Dedicated server mod: RMI registry (lobby + chat) i stolovi u istom procesu
+    // Korištenje: java TableServer [port] [igrača po stolu] [otvorenih stolova] [rmi port] [THREAD_PER_CLIENT|VIRTUAL_THREADS|NIO]
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NetworkConstants.DEFAULT_GAME_SERVER_PORT;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : NetworkConstants.DEFAULT_PLAYERS;
+        int open = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int rmiPort = args.length > 3 ? Integer.parseInt(args[3]) : NetworkConstants.RMI_REGISTRY_PORT;
+        ServerTransport transport = args.length > 4 ? ServerTransport.valueOf(args[4]) : ServerTransport.NIO;
+
+        RMIRegistryServer registry = new RMIRegistryServer(rmiPort);
+        registry.start();
+
+        TableServer server = new TableServer(port, players, open, registry.getLobbyService(),
+                InetAddress.getLocalHost().getHostAddress(), transport);
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.shutdown();
+            registry.stop();
+        }));
+
+        System.out.println("[TableServer] Server radi. Pritisni Ctrl+C za zaustavljanje.");
+        server.join();
+    }
+}
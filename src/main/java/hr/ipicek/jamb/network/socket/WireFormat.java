@@ -0,0 +1,38 @@
+package hr.ipicek.jamb.network.socket;
+
+import hr.ipicek.jamb.network.protocol.GameMessage;
+
+
+ // Format tijela okvira. Klijent u PLAYER_JOINED nudi BINARY, a server od tada piše binarno;
+ // klijent prelazi na BINARY tek kad primi prvi binarni okvir. Stari klijenti i serveri ostaju na JAVA.
+enum WireFormat {
+    JAVA,
+    BINARY;
+
+    // -Djamb.wireFormat=JAVA isključuje binarni codec (npr. za debug sa starijim klijentom)
+    static final WireFormat PREFERRED = "JAVA".equalsIgnoreCase(System.getProperty("jamb.wireFormat")) ? JAVA : BINARY;
+
+    // Payload PLAYER_JOINED poruke kojim klijent nudi binarni format
+    static String offer() {
+        return PREFERRED == BINARY ? BINARY.name() : null;
+    }
+
+    // Prva poruka konekcije: PLAYER_JOINED, RECONNECT_REQUEST ili SPECTATE_REQUEST - sve nose ime i ponudu formata
+    static boolean isHandshake(GameMessage message) {
+        if (message.getType() == null) return false;
+        return switch (message.getType()) {
+            case PLAYER_JOINED, RECONNECT_REQUEST, SPECTATE_REQUEST -> true;
+            default -> false;
+        };
+    }
+
+    static WireFormat negotiate(GameMessage handshake) {
+        var reconnect = handshake.getPayloadAs(GameMessage.ReconnectData.class);
+        return negotiate(reconnect != null ? reconnect.wireFormat() : handshake.getPayload());
+    }
+
+    // Server prihvaća binarni format samo ako ga je klijent ponudio i ako ga i sam koristi
+    static WireFormat negotiate(Object offer) {
+        return PREFERRED == BINARY && BINARY.name().equals(offer) ? BINARY : JAVA;
+    }
+}
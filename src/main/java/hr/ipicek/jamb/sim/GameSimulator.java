@@ -0,0 +1,150 @@
+package hr.ipicek.jamb.sim;
+
+import hr.ipicek.jamb.ai.Decision;
+import hr.ipicek.jamb.ai.GreedyStrategy;
+import hr.ipicek.jamb.ai.OptimalStrategy;
+import hr.ipicek.jamb.ai.Strategy;
+import hr.ipicek.jamb.core.DiceRoller;
+import hr.ipicek.jamb.core.DiceState;
+import hr.ipicek.jamb.core.GameCore;
+import hr.ipicek.jamb.core.ScoreCard;
+import hr.ipicek.jamb.util.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+// Monte Carlo self-play: igra puno cijelih igara nad GameCore pravilima.
+// Posao se dijeli fork/join zadacima (work-stealing), svaki zadatak dobiva svoj SplittableRandom
+// preko split() i ubacuje ga u kockice kao DiceRoller - niti ne dijele RNG, a isti seed daje iste rezultate.
+public final class GameSimulator {
+
+    private static final int GAMES_PER_TASK = 2_000;
+
+    private final List<Strategy> strategies;
+    private final ForkJoinPool pool;
+
+    public GameSimulator(List<Strategy> strategies) {
+        this(strategies, ForkJoinPool.commonPool());
+    }
+
+    public GameSimulator(List<Strategy> strategies, ForkJoinPool pool) {
+        if (strategies == null || strategies.isEmpty()) {
+            throw new IllegalArgumentException("Potrebna je barem jedna strategija.");
+        }
+        this.strategies = List.copyOf(strategies);
+        this.pool = pool;
+    }
+
+    public Result run(long games, long seed) {
+        long start = System.nanoTime();
+        SimulationStats stats = pool.invoke(new SimulationTask(0, games, new SplittableRandom(seed)));
+        return new Result(stats, System.nanoTime() - start);
+    }
+
+    public record Result(SimulationStats stats, long elapsedNanos) {
+
+        public double gamesPerSecond() {
+            return stats.getGames() / (elapsedNanos / 1e9);
+        }
+    }
+
+    public String report(Result result) {
+        SimulationStats stats = result.stats();
+        StringBuilder sb = new StringBuilder("=== Simulacija ===\n");
+        sb.append(String.format("Igara: %d, trajanje: %.2f s, %.0f igara/s%n",
+                stats.getGames(), result.elapsedNanos() / 1e9, result.gamesPerSecond()));
+        for (int p = 0; p < strategies.size(); p++) {
+            sb.append(String.format("Igrač %d (%s): pobjede %.2f%%, prosjek %.2f, sd %.2f, p5/p50/p95 %d/%d/%d%n",
+                    p + 1, strategies.get(p).getName(), stats.winRate(p) * 100,
+                    stats.mean(p), stats.stdDev(p),
+                    stats.percentile(p, 5), stats.percentile(p, 50), stats.percentile(p, 95)));
+        }
+        sb.append(String.format("Neriješeno: %.2f%%", stats.getGames() == 0 ? 0 : 100.0 * stats.getDraws() / stats.getGames()));
+        return sb.toString();
+    }
+
+    // Igra jednu cijelu igru; core i buffer se ponovno koriste između igara
+    void playGame(GameCore core, int[] dice, SplittableRandom rng, SimulationStats stats, int[] totals) {
+        core.reset();
+        DiceState state = core.getDice();
+
+        while (!core.isGameOver()) {
+            int player = core.getCurrentPlayer();
+            ScoreCard card = core.getCard(player);
+            Strategy strategy = strategies.get(player);
+
+            while (true) {
+                state.copyValues(dice);
+                Decision decision = strategy.decide(card.getFilledMask(), dice, core.getRollCount(), rng);
+
+                if (decision.isReroll() && core.getRollCount() < GameCore.MAX_ROLLS) {
+                    state.setHoldMask(decision.holdMask());
+                    core.roll();
+                } else {
+                    int category = decision.isReroll()
+                            ? Integer.numberOfTrailingZeros(~card.getFilledMask())
+                            : decision.category().ordinal();
+                    if (core.applyScore(category) < 0) {
+                        throw new IllegalStateException(strategy.getName() + " je odabrala popunjenu kategoriju");
+                    }
+                    break;
+                }
+            }
+        }
+
+        for (int p = 0; p < totals.length; p++) {
+            totals[p] = core.getCard(p).total();
+        }
+        stats.record(totals);
+    }
+
+    private final class SimulationTask extends RecursiveTask<SimulationStats> {
+        private final long from;
+        private final long to;
+        private final SplittableRandom rng;
+
+        SimulationTask(long from, long to, SplittableRandom rng) {
+            this.from = from;
+            this.to = to;
+            this.rng = rng;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                SimulationStats stats = new SimulationStats(strategies.size());
+                GameCore core = new GameCore(strategies.size(), DiceRoller.of(rng));
+                int[] dice = new int[DiceState.DICE_COUNT];
+                int[] totals = new int[strategies.size()];
+                for (long g = from; g < to; g++) {
+                    playGame(core, dice, rng, stats, totals);
+                }
+                return stats;
+            }
+
+            long mid = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(from, mid, rng.split());
+            SimulationTask right = new SimulationTask(mid, to, rng.split());
+            left.fork();
+            SimulationStats rightStats = right.compute();
+            return left.join().merge(rightStats);
+        }
+    }
+
+    // java ... GameSimulator [broj igara] [seed]
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        OptimalStrategy optimal = OptimalStrategy.loadOrSolve(OptimalStrategy.DEFAULT_FILE);
+        GameSimulator simulator = new GameSimulator(List.of(optimal, new GreedyStrategy()));
+
+        Logger.info("GameSimulator", "Pokrećem %d igara (seed %d)...", games, seed);
+        Result result = simulator.run(games, seed);
+        System.out.println(simulator.report(result));
+    }
+}
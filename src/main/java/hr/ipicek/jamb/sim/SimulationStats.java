@@ -0,0 +1,100 @@
+package hr.ipicek.jamb.sim;
+
+import java.util.Arrays;
+
+
+// Rezultati simulacije za dio odigranih igara; dijelovi se spajaju s merge()
+public final class SimulationStats {
+
+    // Veće od najvećeg mogućeg zbroja bodova
+    static final int MAX_SCORE = 512;
+
+    private final int playerCount;
+    private final long[][] histograms;
+    private final long[] wins;
+    private long draws;
+    private long games;
+
+    SimulationStats(int playerCount) {
+        this.playerCount = playerCount;
+        this.histograms = new long[playerCount][MAX_SCORE];
+        this.wins = new long[playerCount];
+    }
+
+    void record(int[] totals) {
+        int best = Integer.MIN_VALUE;
+        int winner = -1;
+        boolean draw = false;
+        for (int p = 0; p < playerCount; p++) {
+            histograms[p][Math.min(totals[p], MAX_SCORE - 1)]++;
+            if (totals[p] > best) {
+                best = totals[p];
+                winner = p;
+                draw = false;
+            } else if (totals[p] == best) {
+                draw = true;
+            }
+        }
+        if (draw) draws++;
+        else wins[winner]++;
+        games++;
+    }
+
+    SimulationStats merge(SimulationStats other) {
+        for (int p = 0; p < playerCount; p++) {
+            for (int s = 0; s < MAX_SCORE; s++) {
+                histograms[p][s] += other.histograms[p][s];
+            }
+            wins[p] += other.wins[p];
+        }
+        draws += other.draws;
+        games += other.games;
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public double winRate(int player) {
+        return games == 0 ? 0 : (double) wins[player] / games;
+    }
+
+    public double mean(int player) {
+        if (games == 0) return 0;
+        double sum = 0;
+        for (int s = 0; s < MAX_SCORE; s++) {
+            sum += (double) s * histograms[player][s];
+        }
+        return sum / games;
+    }
+
+    public double stdDev(int player) {
+        if (games == 0) return 0;
+        double mean = mean(player);
+        double sq = 0;
+        for (int s = 0; s < MAX_SCORE; s++) {
+            sq += (s - mean) * (s - mean) * histograms[player][s];
+        }
+        return Math.sqrt(sq / games);
+    }
+
+    // Percentil (0-100) iz histograma
+    public int percentile(int player, double percent) {
+        long target = (long) Math.ceil(games * percent / 100.0);
+        long seen = 0;
+        for (int s = 0; s < MAX_SCORE; s++) {
+            seen += histograms[player][s];
+            if (seen >= Math.max(1, target)) return s;
+        }
+        return MAX_SCORE - 1;
+    }
+
+    public long[] histogram(int player) {
+        return Arrays.copyOf(histograms[player], MAX_SCORE);
+    }
+}
@@ -1,6 +1,7 @@
 package hr.ipicek.jamb.util;
 
 import hr.ipicek.jamb.model.GameEngine;
+import hr.ipicek.jamb.model.Player;
 import hr.ipicek.jamb.model.ScoreCategory;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
@@ -58,18 +59,16 @@ public final class DialogUtils {
         alert.setHeaderText("Rezultati");
 
         var players = engine.getPlayers();
-        var p1 = players.get(0);
-        var p2 = players.get(1);
-
-        int score1 = p1.getSheet().total();
-        int score2 = p2.getSheet().total();
-
-        if (score1 > score2)
-            alert.setContentText(p1.getName() + " je pobijedio sa " + score1 + " bodova!");
-        else if (score2 > score1)
-            alert.setContentText(p2.getName() + " je pobijedio sa " + score2 + " bodova!");
+        int best = players.stream().mapToInt(p -> p.getSheet().total()).max().orElse(0);
+        var winners = players.stream()
+                .filter(p -> p.getSheet().total() == best)
+                .map(Player::getName)
+                .toList();
+
+        if (winners.size() == 1)
+            alert.setContentText(winners.get(0) + " je pobijedio sa " + best + " bodova!");
         else
-            alert.setContentText("Neriješeno! Oba igrača imaju " + score1 + " bodova.");
+            alert.setContentText("Neriješeno! " + String.join(", ", winners) + " imaju po " + best + " bodova.");
 
         alert.showAndWait();
     }
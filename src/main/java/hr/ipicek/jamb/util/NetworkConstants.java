@@ -8,6 +8,30 @@ public final class NetworkConstants {
     public static final int RMI_REGISTRY_PORT = 1099;
     public static final String RMI_LOBBY_SERVICE = "LobbyService";
     public static final String RMI_CHAT_SERVICE = "ChatService";
+    // Koliko zadnjih lobby događaja se čuva za getAvailableGamesSince (stariji klijenti dobivaju cijelu listu)
+    public static final int LOBBY_EVENT_LOG_SIZE = 256;
+    // Najveća stranica koju vraća LobbyService.findGames
+    public static final int LOBBY_MAX_PAGE_SIZE = 100;
+    // Lobby događaji čekaju u redu po listeneru i šalju se u batchevima; kad je red pun najstariji se odbacuju
+    // (klijent rupu u verzijama nadoknadi preko getAvailableGamesSince), a listener koji
+    // LOBBY_LISTENER_MAX_FAILURES puta zaredom ne primi batch se uklanja
+    public static final int LOBBY_OUTBOX_CAPACITY = 256;
+    public static final int LOBBY_MAX_BATCH = 32;
+    public static final int LOBBY_LISTENER_MAX_FAILURES = 3;
+    public static final long LOBBY_RETRY_DELAY_MS = 500;
+    // Chat poruke čekaju u redu po listeneru (najstarije se odbacuju kad je pun) i šalju se u batchevima;
+    // listener koji CHAT_LISTENER_MAX_FAILURES puta zaredom ne primi batch se uklanja
+    public static final int CHAT_OUTBOX_CAPACITY = 256;
+    public static final int CHAT_MAX_BATCH = 32;
+    public static final int CHAT_LISTENER_MAX_FAILURES = 3;
+    public static final long CHAT_RETRY_DELAY_MS = 500;
+
+    // Journal lobbyja i chata za oporavak nakon restarta RMI servera (-Djamb.journal=putanja, prazno = isključen).
+    // Datoteka raste po JOURNAL_MAP_SIZE, sažima se kad se od zadnjeg sažimanja zapiše JOURNAL_COMPACT_BYTES
+    public static final String JOURNAL_FILE = "jamb-rmi.journal";
+    public static final int JOURNAL_MAP_SIZE = 4 * 1024 * 1024;
+    public static final long JOURNAL_COMPACT_BYTES = 16L * 1024 * 1024;
+    public static final long JOURNAL_FLUSH_MS = 1000;
 
     // Game Server Configuration
     public static final int DEFAULT_GAME_SERVER_PORT = 8888;
@@ -16,15 +40,35 @@ public final class NetworkConstants {
     // Network Timeouts (milliseconds)
     public static final int CONNECTION_TIMEOUT = 5000;
     public static final int READ_TIMEOUT = 10000;
+    // PING svakih HEARTBEAT_INTERVAL_MS, peer koji ništa ne pošalje READ_TIMEOUT ms se odspaja
+    public static final long HEARTBEAT_INTERVAL_MS = 3000;
 
     // Game Configuration
-    public static final int MAX_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 8;
     public static final int MIN_PLAYERS = 2;
+    public static final int DEFAULT_PLAYERS = 2;
 
     // Message Size Limits
     public static final int MAX_MESSAGE_SIZE = 65536; // 64KB
     public static final int BUFFER_SIZE = 8192; // 8KB
 
+    // Koliko writer smije čekati na još poruka prije flusha (0 = flush čim je red prazan)
+    public static final long OUTBOUND_FLUSH_LATENCY_MS = 0;
+    // Klijent koji ne čita, pa mu u redu čeka više poruka od ovoga, se odspaja
+    public static final int OUTBOUND_HIGH_WATER_MARK = 512;
+
+    // Koliko zadnjih delta updatea server čuva za klijente koji se ponovno spajaju (stariji dobivaju snapshot)
+    public static final int REPLAY_BUFFER_SIZE = 64;
+    // Koliko dugo se igraču kojem je pukla veza čuva mjesto u igri
+    public static final long RECONNECT_GRACE_MS = 30_000;
+
+    // Gledatelji: stanje kasni SPECTATOR_DELAY_MS i šalje se najviše jednom po SPECTATOR_TICK_MS;
+    // gledatelj s više od SPECTATOR_MAX_PENDING poruka u redu preskače međuverzije
+    public static final long SPECTATOR_DELAY_MS = 2000;
+    public static final long SPECTATOR_TICK_MS = 250;
+    public static final int SPECTATOR_MAX_PENDING = 4;
+    public static final int MAX_SPECTATORS = 500;
+
     // Retry Configuration
     public static final int MAX_RETRY_ATTEMPTS = 3;
     public static final int RETRY_DELAY_MS = 1000;
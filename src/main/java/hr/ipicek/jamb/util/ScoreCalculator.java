@@ -3,62 +3,81 @@ package hr.ipicek.jamb.util;
 import hr.ipicek.jamb.model.DiceSet;
 import hr.ipicek.jamb.model.ScoreCategory;
 
-import java.util.List;
-import java.util.Map;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-
 public final class ScoreCalculator {
 
+    // Histogram je pakiran u jedan int: 3 bita po licu kocke (dovoljno za 5 kockica)
+    private static final int BITS_PER_FACE = 3;
+    private static final int COUNT_MASK = 0b111;
+    private static final int FACES = 6;
+
+    // Maske lica (bit v = lice v) za sve moguće skale
+    private static final int SMALL_1_4 = 0b0011110;
+    private static final int SMALL_2_5 = 0b0111100;
+    private static final int SMALL_3_6 = 0b1111000;
+    private static final int LARGE_1_5 = 0b0111110;
+    private static final int LARGE_2_6 = 0b1111100;
+
     private ScoreCalculator() {}
 
     public static int calculate(ScoreCategory category, DiceSet diceSet) {
-        var values = diceSet.getDiceValues();
-        Map<Integer, Long> counts = values.stream()
-                .collect(Collectors.groupingBy(v -> v, Collectors.counting()));
+        return calculate(category, diceSet.getDiceValues().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Primitivna verzija bez alokacija - vrijednosti kockica moraju biti 1-6
+    public static int calculate(ScoreCategory category, int[] dice) {
+        int counts = 0;
+        int faces = 0;
+        int sum = 0;
+        for (int v : dice) {
+            counts += 1 << (BITS_PER_FACE * (v - 1));
+            faces |= 1 << v;
+            sum += v;
+        }
 
         return switch (category) {
-            case ONES -> sumOf(values, 1);
-            case TWOS -> sumOf(values, 2);
-            case THREES -> sumOf(values, 3);
-            case FOURS -> sumOf(values, 4);
-            case FIVES -> sumOf(values, 5);
-            case SIXES -> sumOf(values, 6);
-            case THREE_OF_A_KIND -> hasOfAKind(counts, 3) ? sum(values) : 0;
-            case FOUR_OF_A_KIND -> hasOfAKind(counts, 4) ? sum(values) : 0;
-            case FULL_HOUSE -> counts.containsValue(3L) && counts.containsValue(2L) ? sum(values) : 0;
-            case SMALL_STRAIGHT -> hasStraight(values, 4) ? 30 : 0;
-            case LARGE_STRAIGHT -> hasStraight(values, 5) ? 40 : 0;
-            case YAHTZEE -> hasOfAKind(counts, 5) ? 50 : 0;
-            case CHANCE -> sum(values);
-            default -> 0;
+            case ONES -> countOf(counts, 1);
+            case TWOS -> countOf(counts, 2) * 2;
+            case THREES -> countOf(counts, 3) * 3;
+            case FOURS -> countOf(counts, 4) * 4;
+            case FIVES -> countOf(counts, 5) * 5;
+            case SIXES -> countOf(counts, 6) * 6;
+            case THREE_OF_A_KIND -> maxCount(counts) >= 3 ? sum : 0;
+            case FOUR_OF_A_KIND -> maxCount(counts) >= 4 ? sum : 0;
+            case FULL_HOUSE -> hasCount(counts, 3) && hasCount(counts, 2) ? sum : 0;
+            case SMALL_STRAIGHT -> hasSmallStraight(faces) ? 30 : 0;
+            case LARGE_STRAIGHT -> hasLargeStraight(faces) ? 40 : 0;
+            case YAHTZEE -> maxCount(counts) >= 5 ? 50 : 0;
+            case CHANCE -> sum;
         };
     }
 
-    private static int sumOf(List<Integer> values, int target) {
-        return values.stream().filter(v -> v == target).mapToInt(Integer::intValue).sum();
+    private static int countOf(int counts, int face) {
+        return (counts >>> (BITS_PER_FACE * (face - 1))) & COUNT_MASK;
     }
 
-    private static int sum(List<Integer> values) {
-        return values.stream().mapToInt(Integer::intValue).sum();
+    private static int maxCount(int counts) {
+        int max = 0;
+        for (int face = 1; face <= FACES; face++) {
+            max = Math.max(max, countOf(counts, face));
+        }
+        return max;
     }
 
-    private static boolean hasOfAKind(Map<Integer, Long> counts, int n) {
-        return counts.values().stream().anyMatch(c -> c >= n);
+    private static boolean hasCount(int counts, int n) {
+        for (int face = 1; face <= FACES; face++) {
+            if (countOf(counts, face) == n) return true;
+        }
+        return false;
     }
 
-    private static boolean hasStraight(List<Integer> values, int length) {
-        var set = new TreeSet<>(values);
-        int max = 1;
-        int streak = 1;
-        Integer prev = null;
-        for (int v : set) {
-            if (prev != null && v == prev + 1) {
-                streak++;
-                max = Math.max(max, streak);
-            } else streak = 1;
-            prev = v;
-        }
-        return max >= length;
+    private static boolean hasSmallStraight(int faces) {
+        return (faces & SMALL_1_4) == SMALL_1_4
+                || (faces & SMALL_2_5) == SMALL_2_5
+                || (faces & SMALL_3_6) == SMALL_3_6;
+    }
+
+    private static boolean hasLargeStraight(int faces) {
+        return (faces & LARGE_1_5) == LARGE_1_5
+                || (faces & LARGE_2_6) == LARGE_2_6;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package hr.ipicek.jamb.util;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+
+import java.util.Arrays;
+
+
+// Unaprijed izračunati bodovi za svih 252 kombinacija 5 kockica (multiseta) i sve kategorije.
+// Ključ kockica je broj u bazi 6 (redoslijed kockica nije bitan - svi poretci pokazuju na isti multiset).
+public final class ScoreTable {
+
+    public static final int DICE_COUNT = 5;
+    public static final int FACES = 6;
+    public static final int MULTISET_COUNT = 252;
+    public static final int KEY_COUNT = 7776; // 6^5
+
+    private static final int CATEGORY_COUNT = ScoreCategory.values().length;
+
+    private static final short[] KEY_TO_INDEX = new short[KEY_COUNT];
+    private static final int[][] MULTISETS = new int[MULTISET_COUNT][];
+    private static final int[] SCORES = new int[MULTISET_COUNT * CATEGORY_COUNT];
+
+    static {
+        ScoreCategory[] categories = ScoreCategory.values();
+        int index = 0;
+
+        // Svi sortirani multiseti a <= b <= c <= d <= e
+        for (int a = 1; a <= FACES; a++)
+            for (int b = a; b <= FACES; b++)
+                for (int c = b; c <= FACES; c++)
+                    for (int d = c; d <= FACES; d++)
+                        for (int e = d; e <= FACES; e++) {
+                            int[] dice = {a, b, c, d, e};
+                            MULTISETS[index] = dice;
+                            KEY_TO_INDEX[key(dice)] = (short) index;
+                            for (ScoreCategory category : categories) {
+                                SCORES[index * CATEGORY_COUNT + category.ordinal()] =
+                                        ScoreCalculator.calculate(category, dice);
+                            }
+                            index++;
+                        }
+
+        // Svaki nesortirani ključ mapiraj na indeks njegovog sortiranog multiseta
+        int[] dice = new int[DICE_COUNT];
+        for (int key = 0; key < KEY_COUNT; key++) {
+            int rest = key;
+            for (int i = 0; i < DICE_COUNT; i++) {
+                dice[i] = rest % FACES + 1;
+                rest /= FACES;
+            }
+            Arrays.sort(dice);
+            KEY_TO_INDEX[key] = KEY_TO_INDEX[key(dice)];
+        }
+    }
+
+    private ScoreTable() {}
+
+    // Ključ 0..7775 iz vrijednosti kockica (1-6)
+    public static int key(int[] dice) {
+        int key = 0;
+        for (int i = DICE_COUNT - 1; i >= 0; i--) {
+            key = key * FACES + (dice[i] - 1);
+        }
+        return key;
+    }
+
+    // Indeks multiseta 0..251
+    public static int indexOf(int[] dice) {
+        return KEY_TO_INDEX[key(dice)];
+    }
+
+    public static int indexOfKey(int key) {
+        return KEY_TO_INDEX[key];
+    }
+
+    public static int score(ScoreCategory category, int[] dice) {
+        return SCORES[indexOf(dice) * CATEGORY_COUNT + category.ordinal()];
+    }
+
+    public static int score(int multisetIndex, ScoreCategory category) {
+        return SCORES[multisetIndex * CATEGORY_COUNT + category.ordinal()];
+    }
+
+    public static int score(int multisetIndex, int categoryOrdinal) {
+        return SCORES[multisetIndex * CATEGORY_COUNT + categoryOrdinal];
+    }
+
+    // Sortirane vrijednosti kockica za dani indeks (kopija)
+    public static int[] dice(int multisetIndex) {
+        return MULTISETS[multisetIndex].clone();
+    }
+}
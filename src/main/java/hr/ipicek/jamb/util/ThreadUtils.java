@@ -0,0 +1,34 @@
+package hr.ipicek.jamb.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// pokretanje I/O threadova - virtual threadovi po defaultu, -Djamb.virtualThreads=false vraća platform threadove
+public final class ThreadUtils {
+
+    public static final boolean VIRTUAL_THREADS =
+            !"false".equalsIgnoreCase(System.getProperty("jamb.virtualThreads"));
+
+    private ThreadUtils() {}
+
+    // Virtual threadovi su uvijek daemon, platform threadove postavljamo isto da ne drže JVM živim
+    public static Thread.Builder builder(String name, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(name)
+                : Thread.ofPlatform().name(name).daemon(true);
+    }
+
+    // Pomoćni threadovi konekcije (npr. writer) idu na istu vrstu threada kao i sama konekcija
+    public static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+
+    public static Thread start(String name, Runnable task) {
+        return builder(name, VIRTUAL_THREADS).start(task);
+    }
+
+    // Executor koji za svaki task pokreće novi virtual thread (npr. po konekciji)
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+}
@@ -7,6 +7,7 @@ module hr.ipicek.jamb {
 
     opens hr.ipicek.jamb.controller to javafx.fxml;
     exports hr.ipicek.jamb;
+    exports hr.ipicek.jamb.core;
     exports hr.ipicek.jamb.network.rmi;
     exports hr.ipicek.jamb.network.protocol;
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package hr.ipicek.jamb.network.protocol;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// encode -> decode mora vratiti istu poruku za svaku vrstu payloada, a pokvaren okvir samo StreamCorruptedException
+class BinaryMessageCodecTest {
+
+    // Codec čuva vrijeme u milisekundama
+    private static final LocalDateTime TIME = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    private static final String GAME_ID = UUID.randomUUID().toString();
+
+    private static GameMessage roundTrip(GameMessage message) throws IOException {
+        byte[] body = BinaryMessageCodec.encode(message);
+        assertTrue(BinaryMessageCodec.isBinary(body, 0, body.length));
+        GameMessage decoded = BinaryMessageCodec.decode(body, 0, body.length);
+        assertEquals(message.getType(), decoded.getType());
+        assertEquals(message.getSenderName(), decoded.getSenderName());
+        assertEquals(message.getTimestamp(), decoded.getTimestamp());
+        assertEquals(message.getGameId(), decoded.getGameId());
+        return decoded;
+    }
+
+    private static GameMessage message(MessageType type, String sender, Object payload) {
+        return new GameMessage(type, sender, payload, TIME, GAME_ID);
+    }
+
+    private static GameStateUpdate snapshot() {
+        Map<ScoreCategory, Integer> ana = new EnumMap<>(ScoreCategory.class);
+        ana.put(ScoreCategory.values()[0], 3);
+        ana.put(ScoreCategory.values()[ScoreCategory.values().length - 1], 50);
+        Map<String, Map<ScoreCategory, Integer>> sheets = new HashMap<>();
+        sheets.put("Ana", ana);
+        sheets.put("Marko", new EnumMap<>(ScoreCategory.class));
+        return new GameStateUpdate(42, true, List.of(1, 6, 3, 3, 5), List.of(true, false, false, true, false),
+                2, 0, "Ana", sheets, Map.of("Ana", 53, "Marko", 0), false, null);
+    }
+
+    @Test
+    void snapshotStateRoundTrips() throws IOException {
+        GameStateUpdate state = snapshot();
+        assertEquals(state, roundTrip(message(MessageType.GAME_STATE_UPDATE, "SYSTEM", state)).getPayload());
+    }
+
+    @Test
+    void deltaStateWithoutDiceAndHoldsRoundTrips() throws IOException {
+        GameStateUpdate delta = new GameStateUpdate(43, false, null, null, 0, 1, null,
+                Map.of("Ana", Map.of(ScoreCategory.values()[2], 9)), Map.of("Ana", 62), true, "Ana");
+        GameStateUpdate decoded = (GameStateUpdate) roundTrip(
+                message(MessageType.GAME_STATE_UPDATE, "SYSTEM", delta)).getPayload();
+        assertEquals(delta, decoded);
+        assertNull(decoded.diceValues());
+        assertNull(decoded.diceHeld());
+    }
+
+    @Test
+    void diceHoldRoundTrips() throws IOException {
+        for (boolean held : new boolean[]{true, false}) {
+            GameMessage.DiceHoldData hold = new GameMessage.DiceHoldData(4, held);
+            assertEquals(hold, roundTrip(message(MessageType.DICE_HOLD_TOGGLE, "Ana", hold)).getPayload());
+        }
+    }
+
+    @Test
+    void playerMoveRoundTrips() throws IOException {
+        for (ScoreCategory category : ScoreCategory.values()) {
+            PlayerMove move = new PlayerMove("Marko", category, -7, List.of(2, 2, 4, 6, 1), 3);
+            assertEquals(move, roundTrip(message(MessageType.SCORE_APPLIED, "Marko", move)).getPayload());
+        }
+    }
+
+    @Test
+    void gameOverRoundTrips() throws IOException {
+        GameMessage.GameOverData over = new GameMessage.GameOverData("Ana", 312);
+        assertEquals(over, roundTrip(message(MessageType.GAME_OVER, "SYSTEM", over)).getPayload());
+    }
+
+    @Test
+    void reconnectRoundTrips() throws IOException {
+        GameMessage.ReconnectData reconnect = new GameMessage.ReconnectData("token-1", 1L << 40, "binary");
+        assertEquals(reconnect, roundTrip(message(MessageType.RECONNECT_REQUEST, "Ana", reconnect)).getPayload());
+    }
+
+    @Test
+    void namesAndDiceRoundTrip() throws IOException {
+        List<String> names = List.of("Ana", "Marko", "Željko");
+        assertEquals(names, roundTrip(message(MessageType.PLAYER_JOINED, "SYSTEM", names)).getPayload());
+
+        int[] dice = {6, 5, 4, 3, 2};
+        assertArrayEquals(dice, (int[]) roundTrip(message(MessageType.DICE_ROLLED, "Ana", dice)).getPayload());
+    }
+
+    @Test
+    void pingLongAndHeaderVariantsRoundTrip() throws IOException {
+        Long ping = System.nanoTime();
+        assertEquals(ping, roundTrip(message(MessageType.PING, "SYSTEM", ping)).getPayload());
+        assertEquals(Long.valueOf(Long.MIN_VALUE), roundTrip(message(MessageType.PONG, "Ana", Long.MIN_VALUE)).getPayload());
+
+        // Bez vremena i stola, te stol koji nije UUID
+        assertNull(roundTrip(new GameMessage(MessageType.DISCONNECT, "Ana", null, null, null)).getPayload());
+        assertEquals("bok", roundTrip(new GameMessage(MessageType.CHAT_MESSAGE, "Ana", "bok", TIME, "stol-1")).getPayload());
+    }
+
+    @Test
+    void unsupportedPayloadFallsBackToJavaSerialization() throws IOException {
+        ArrayList<Integer> numbers = new ArrayList<>(List.of(1, 2, 3));
+        assertEquals(numbers, roundTrip(message(MessageType.ERROR, "SYSTEM", numbers)).getPayload());
+
+        // Kockica koja ne stane u nibble
+        PlayerMove move = new PlayerMove("Ana", ScoreCategory.values()[0], 1, List.of(1, 2, 3, 4, 42), 1);
+        assertEquals(move, roundTrip(message(MessageType.SCORE_APPLIED, "Ana", move)).getPayload());
+    }
+
+    @Test
+    void truncatedFrameIsCorrupted() throws IOException {
+        List<GameMessage> messages = List.of(
+                message(MessageType.GAME_STATE_UPDATE, "SYSTEM", snapshot()),
+                message(MessageType.SCORE_APPLIED, "Marko",
+                        new PlayerMove("Marko", ScoreCategory.values()[1], 8, List.of(4, 4, 1, 2, 3), 2)),
+                message(MessageType.PLAYER_JOINED, "SYSTEM", List.of("Ana", "Marko")),
+                message(MessageType.ERROR, "SYSTEM", new ArrayList<>(List.of(1, 2, 3))));
+        for (GameMessage message : messages) {
+            byte[] body = BinaryMessageCodec.encode(message);
+            for (int length = 1; length < body.length; length++) {
+                int n = length;
+                assertThrows(StreamCorruptedException.class, () -> BinaryMessageCodec.decode(body, 0, n),
+                        message.getType() + " skraćen na " + n);
+            }
+        }
+    }
+
+    @Test
+    void unknownTagsAreCorrupted() throws IOException {
+        // [MAGIC][tip][flags][payload tag] - SYSTEM pošiljatelj, bez vremena i stola
+        byte[] body = BinaryMessageCodec.encode(new GameMessage(MessageType.ERROR, "SYSTEM", null, null, null));
+        assertEquals(4, body.length);
+
+        byte[] unknownPayload = body.clone();
+        unknownPayload[3] = 0x42;
+        assertThrows(StreamCorruptedException.class,
+                () -> BinaryMessageCodec.decode(unknownPayload, 0, unknownPayload.length));
+
+        byte[] unknownType = body.clone();
+        unknownType[1] = (byte) 0xFE;
+        assertThrows(StreamCorruptedException.class,
+                () -> BinaryMessageCodec.decode(unknownType, 0, unknownType.length));
+
+        byte[] notBinary = body.clone();
+        notBinary[0] = 0;
+        assertThrows(StreamCorruptedException.class,
+                () -> BinaryMessageCodec.decode(notBinary, 0, notBinary.length));
+
+        byte[] trailing = Arrays.copyOf(body, body.length + 1);
+        assertThrows(StreamCorruptedException.class, () -> BinaryMessageCodec.decode(trailing, 0, trailing.length));
+
+        // Nepoznata kategorija u PlayerMove
+        PlayerMove move = new PlayerMove("Ana", ScoreCategory.values()[0], 1, List.of(1, 2, 3, 4, 5), 1);
+        byte[] moveBody = BinaryMessageCodec.encode(new GameMessage(MessageType.SCORE_APPLIED, "SYSTEM", move, null, null));
+        moveBody[3 + 1 + 1 + "Ana".length()] = (byte) 0xFE; // [tag][duljina imena][ime][kategorija]
+        assertThrows(StreamCorruptedException.class, () -> BinaryMessageCodec.decode(moveBody, 0, moveBody.length));
+
+        // Lista imena s golemim brojem elemenata ne smije alocirati prema duljini
+        byte[] names = {BinaryMessageCodec.MAGIC, (byte) MessageType.PLAYER_JOINED.ordinal(), 1, 7,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(StreamCorruptedException.class, () -> BinaryMessageCodec.decode(names, 0, names.length));
+    }
+}
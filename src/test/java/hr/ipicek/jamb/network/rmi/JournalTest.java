@@ -0,0 +1,244 @@
+package hr.ipicek.jamb.network.rmi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Stanje zapisano u journal mora biti isto nakon ponovnog otvaranja, a pokvaren rep se odbacuje
+class JournalTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123_456_789);
+
+    @TempDir
+    Path dir;
+
+    private Path base;
+    private Journal journal;
+    // Očekivano stanje, mijenja se zajedno sa zapisima u journal
+    private Journal.State expected;
+    private long version;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        base = dir.resolve("lobby.journal");
+        journal = Journal.open(base);
+        expected = new Journal.State();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    private void putGame(String id, int players, GameInfo.GameStatus status) {
+        GameInfo game = new GameInfo(id, "host-" + id, "10.0.0." + id.length(), 8888, players, 4, status,
+                TIME.plusMinutes(id.hashCode() % 60));
+        journal.gamePut(++version, game);
+        expected.games.put(id, game);
+        expected.lobbyVersion = version;
+    }
+
+    private void removeGame(String id) {
+        journal.gameRemove(++version, id);
+        expected.games.remove(id);
+        expected.lobbyVersion = version;
+    }
+
+    private void chat(String gameId, String sender, String text) {
+        Journal.ChatState chat = expected.chats.computeIfAbsent(gameId, k -> new Journal.ChatState());
+        ChatMessage message = new ChatMessage(sender, text, ChatMessage.MessageType.REGULAR,
+                TIME.plusSeconds(chat.nextSequence), chat.nextSequence);
+        journal.chatAppend(gameId, message);
+        chat.messages.addLast(message);
+        chat.nextSequence++;
+    }
+
+    private void clearChat(String gameId) {
+        Journal.ChatState chat = expected.chats.computeIfAbsent(gameId, k -> new Journal.ChatState());
+        journal.chatClear(gameId, chat.nextSequence);
+        chat.messages.clear();
+    }
+
+    private void writeSomeState() {
+        putGame("g1", 1, GameInfo.GameStatus.WAITING);
+        putGame("g2", 2, GameInfo.GameStatus.WAITING);
+        putGame("g1", 3, GameInfo.GameStatus.IN_PROGRESS);
+        putGame("g3", 1, GameInfo.GameStatus.WAITING);
+        removeGame("g2");
+        chat("g1", "Ana", "bok");
+        chat("g1", "Marko", "Žućkasti ćup");
+        chat("g3", "Ana", "ima li koga?");
+        clearChat("g3");
+        chat("g3", "SYSTEM", "Ana se pridružila");
+    }
+
+    private Journal.State reopen() throws IOException {
+        journal.close();
+        journal = Journal.open(base);
+        return journal.recovered();
+    }
+
+    // Sva polja, jer GameInfo.equals gleda samo id, a ChatMessage nema equals
+    private static String describe(Journal.State state) {
+        StringBuilder sb = new StringBuilder("version=" + state.lobbyVersion + "\n");
+        for (GameInfo game : state.games.values()) {
+            sb.append(game.getGameId()).append(' ').append(game.getHostName()).append(' ')
+                    .append(game.getServerAddress()).append(':').append(game.getServerPort()).append(' ')
+                    .append(game.getCurrentPlayers()).append('/').append(game.getMaxPlayers()).append(' ')
+                    .append(game.getStatus()).append(' ').append(game.getCreatedAt()).append('\n');
+        }
+        state.chats.forEach((gameId, chat) -> {
+            sb.append("chat ").append(gameId).append(" next=").append(chat.nextSequence).append('\n');
+            for (ChatMessage message : chat.messages) {
+                sb.append("  #").append(message.getSequence()).append(' ').append(message.getSender()).append(": ")
+                        .append(message.getMessage()).append(' ').append(message.getType()).append(' ')
+                        .append(message.getTimestamp()).append('\n');
+            }
+        });
+        return sb.toString();
+    }
+
+    private List<Path> generations() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("lobby.journal.")).toList();
+        }
+    }
+
+    // Početak zadnjeg zapisa - zapisi se prolaze kao u Journal.read (8 B zaglavlje, pa [duljina][CRC][podaci])
+    private static long lastRecordStart(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long position = 8;
+            long last = -1;
+            while (channel.read(header.clear(), position) == Integer.BYTES && header.getInt(0) > 0) {
+                last = position;
+                position += 8 + header.getInt(0);
+            }
+            return last;
+        }
+    }
+
+    @Test
+    void stateSurvivesReopen() throws IOException {
+        writeSomeState();
+        assertEquals(describe(expected), describe(reopen()));
+
+        // Nastavak pisanja u oporavljeni journal
+        putGame("g4", 2, GameInfo.GameStatus.WAITING);
+        chat("g1", "Ana", "opet ja");
+        assertEquals(describe(expected), describe(reopen()));
+    }
+
+    @Test
+    void truncatedLastRecordIsDropped() throws IOException {
+        writeSomeState();
+        journal.close();
+        Path file = generations().get(0);
+        long start = lastRecordStart(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(start + 10);
+        }
+        // Zadnji zapis je poruka "Ana se pridružila" u g3
+        Journal.ChatState g3 = expected.chats.get("g3");
+        g3.messages.removeLast();
+        g3.nextSequence--;
+
+        journal = Journal.open(base);
+        assertEquals(describe(expected), describe(journal.recovered()));
+
+        // Novi zapis ide na mjesto odbačenog i čita se nakon ponovnog otvaranja
+        chat("g3", "SYSTEM", "Ana se ipak pridružila");
+        assertEquals(describe(expected), describe(reopen()));
+    }
+
+    @Test
+    void corruptedLastRecordIsDropped() throws IOException {
+        writeSomeState();
+        journal.close();
+        Path file = generations().get(0);
+        long start = lastRecordStart(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, start + 12);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            channel.write(b.rewind(), start + 12);
+        }
+        Journal.ChatState g3 = expected.chats.get("g3");
+        g3.messages.removeLast();
+        g3.nextSequence--;
+
+        journal = Journal.open(base);
+        assertEquals(describe(expected), describe(journal.recovered()));
+
+        removeGame("g1");
+        assertEquals(describe(expected), describe(reopen()));
+    }
+
+    @Test
+    void unknownOrdinalWithValidChecksumIsDropped() throws IOException {
+        writeSomeState();
+        journal.close();
+        Path file = generations().get(0);
+        long start = lastRecordStart(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(header, start);
+            ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+            channel.read(record, start + 8);
+            // [tip][gameId "g3"][pošiljatelj "SYSTEM"][tekst][tip poruke] - UTF ima 2 B duljine ispred
+            int typeOffset = 1 + (2 + 2) + (2 + 6) + 2 + "Ana se pridružila".getBytes(StandardCharsets.UTF_8).length;
+            record.put(typeOffset, (byte) 0x7F);
+            CRC32 crc = new CRC32();
+            crc.update(record.array());
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue()), start + 4);
+            channel.write(record.rewind(), start + 8);
+        }
+        Journal.ChatState g3 = expected.chats.get("g3");
+        g3.messages.removeLast();
+        g3.nextSequence--;
+
+        journal = Journal.open(base);
+        assertEquals(describe(expected), describe(journal.recovered()));
+
+        chat("g3", "SYSTEM", "Ana se ipak pridružila");
+        assertEquals(describe(expected), describe(reopen()));
+    }
+
+    @Test
+    void compactionKeepsStateInSingleGeneration() throws IOException {
+        writeSomeState();
+        journal.compact();
+        assertEquals(1, generations().size());
+
+        putGame("g5", 1, GameInfo.GameStatus.WAITING);
+        removeGame("g3");
+        chat("g1", "Marko", "nakon sažimanja");
+        clearChat("g1");
+        chat("g1", "Ana", "ispočetka");
+
+        assertEquals(describe(expected), describe(reopen()));
+        List<Path> files = generations();
+        assertEquals(1, files.size());
+        assertEquals("lobby.journal.1", files.get(0).getFileName().toString());
+
+        // Drugo sažimanje nad oporavljenim journalom
+        journal.compact();
+        assertEquals(describe(expected), describe(reopen()));
+        assertEquals(List.of(dir.resolve("lobby.journal.2")), generations());
+    }
+}
@@ -0,0 +1,139 @@
+package hr.ipicek.jamb.network.socket;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+ // Load test za transporte: otvara N idle konekcija na TableServer i mjeri platform threadove i memoriju.
+ // Ne vrti se s običnim testovima: mvn test -Pload-tests (-Djamb.loadConnections=N, default 2000).
+ // Klijenti i server su u istom procesu pa treba dovoljno velik ulimit -n (barem 2 x N).
+@Tag("load")
+class ConnectionLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("jamb.loadConnections", 2000);
+    private static final long ACCEPT_TIMEOUT_MS = 60_000;
+
+    // Idle klijenti ne odgovaraju na PING - bez ovoga ih heartbeat odspoji prije nego se otvore sve konekcije.
+    // Mora se postaviti prije nego se učita Heartbeat (prvi TableServer), -Djamb.heartbeatTimeoutMs ima prednost.
+    static {
+        if (System.getProperty("jamb.heartbeatTimeoutMs") == null) {
+            System.setProperty("jamb.heartbeatTimeoutMs", String.valueOf(10 * ACCEPT_TIMEOUT_MS));
+        }
+    }
+
+    record Result(ServerTransport transport, int requested, int accepted, int platformThreads,
+                  long heapBytes, long rssBytes, long elapsedMillis) {}
+
+    @Test
+    void idleConnectionsPerTransport() throws Exception {
+        Map<ServerTransport, Result> results = new EnumMap<>(ServerTransport.class);
+
+        System.out.printf("%-18s %10s %10s %10s %12s %12s %10s%n",
+                "transport", "traženo", "prihvaćeno", "threadovi", "heap MB", "RSS MB", "ms");
+        for (ServerTransport transport : ServerTransport.values()) {
+            Result r = run(transport, CONNECTIONS, freePort());
+            results.put(transport, r);
+            System.out.printf("%-18s %10d %10d %10d %12.1f %12.1f %10d%n",
+                    r.transport(), r.requested(), r.accepted(), r.platformThreads(),
+                    r.heapBytes() / 1048576.0,
+                    r.rssBytes() < 0 ? Double.NaN : r.rssBytes() / 1048576.0,
+                    r.elapsedMillis());
+        }
+
+        for (Result r : results.values()) {
+            assertEquals(r.requested(), r.accepted(), r.transport() + " nije prihvatio sve konekcije");
+        }
+        // Thread-per-client drži dva platform threada po konekciji, virtual threadovi skoro nijedan
+        assertTrue(results.get(ServerTransport.VIRTUAL_THREADS).platformThreads()
+                        < results.get(ServerTransport.THREAD_PER_CLIENT).platformThreads(),
+                "VIRTUAL_THREADS bi trebao trošiti manje platform threadova od THREAD_PER_CLIENT");
+    }
+
+    private static Result run(ServerTransport transport, int connections, int port) throws Exception {
+        long baseHeap = usedHeap();
+        long baseRss = rss();
+        int baseThreads = platformThreads();
+
+        TableServer server = new TableServer(port, 2, 1, null, "127.0.0.1", transport);
+        server.start();
+        while (!server.isRunning()) {
+            Thread.sleep(10);
+        }
+
+        List<Socket> sockets = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < connections; i++) {
+                sockets.add(new Socket("127.0.0.1", port));
+            }
+
+            long deadline = System.currentTimeMillis() + ACCEPT_TIMEOUT_MS;
+            while (server.getOpenConnectionCount() < connections && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            return new Result(transport, connections, server.getOpenConnectionCount(),
+                    platformThreads() - baseThreads,
+                    usedHeap() - baseHeap,
+                    rss() - baseRss,
+                    elapsed);
+        } finally {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+            server.shutdown();
+            Thread.sleep(500);
+        }
+    }
+
+    // Slobodan port od OS-a - TableServer se odmah veže na njega
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Virtual threadovi se ne pojavljuju u getAllStackTraces pa ovo broji samo platform threadove
+    private static int platformThreads() {
+        return Thread.getAllStackTraces().size();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(100);
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // RSS procesa (Linux) - uključuje i native stackove platform threadova koje heap ne vidi
+    private static long rss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Nije Linux
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,126 @@
+package hr.ipicek.jamb.util;
+
+import hr.ipicek.jamb.model.ScoreCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// ScoreTable (i ScoreCalculator iz kojeg je izgrađen) mora bodovati po pravilima igre za svako bacanje
+class ScoreTableTest {
+
+    // Svih 6^5 poredanih bacanja, ključ u bazi 6 kao u ScoreTable
+    private static int[] roll(int key) {
+        int[] dice = new int[ScoreTable.DICE_COUNT];
+        for (int i = 0; i < dice.length; i++) {
+            dice[i] = key % ScoreTable.FACES + 1;
+            key /= ScoreTable.FACES;
+        }
+        return dice;
+    }
+
+    // Pravila bodovanja napisana izravno (kao originalni ScoreCalculator), neovisno o histogramu u ScoreCalculatoru
+    private static int expected(ScoreCategory category, int[] dice) {
+        int[] counts = new int[ScoreTable.FACES + 1];
+        int sum = 0;
+        for (int v : dice) {
+            counts[v]++;
+            sum += v;
+        }
+        int maxCount = 0;
+        boolean three = false;
+        boolean two = false;
+        for (int face = 1; face <= ScoreTable.FACES; face++) {
+            maxCount = Math.max(maxCount, counts[face]);
+            three |= counts[face] == 3;
+            two |= counts[face] == 2;
+        }
+        // Najdulji niz uzastopnih lica
+        int run = 0;
+        int longestRun = 0;
+        for (int face = 1; face <= ScoreTable.FACES; face++) {
+            run = counts[face] > 0 ? run + 1 : 0;
+            longestRun = Math.max(longestRun, run);
+        }
+
+        return switch (category) {
+            case ONES -> counts[1];
+            case TWOS -> counts[2] * 2;
+            case THREES -> counts[3] * 3;
+            case FOURS -> counts[4] * 4;
+            case FIVES -> counts[5] * 5;
+            case SIXES -> counts[6] * 6;
+            case THREE_OF_A_KIND -> maxCount >= 3 ? sum : 0;
+            case FOUR_OF_A_KIND -> maxCount >= 4 ? sum : 0;
+            case FULL_HOUSE -> three && two ? sum : 0;
+            case SMALL_STRAIGHT -> longestRun >= 4 ? 30 : 0;
+            case LARGE_STRAIGHT -> longestRun >= 5 ? 40 : 0;
+            case YAHTZEE -> maxCount == 5 ? 50 : 0;
+            case CHANCE -> sum;
+        };
+    }
+
+    @Test
+    void scoresMatchRulesForEveryRollAndCategory() {
+        for (int key = 0; key < ScoreTable.KEY_COUNT; key++) {
+            int[] dice = roll(key);
+            int index = ScoreTable.indexOf(dice);
+            for (ScoreCategory category : ScoreCategory.values()) {
+                int expected = expected(category, dice);
+                assertEquals(expected, ScoreTable.score(index, category), Arrays.toString(dice) + " " + category);
+                assertEquals(expected, ScoreCalculator.calculate(category, dice), Arrays.toString(dice) + " " + category);
+            }
+        }
+    }
+
+    // Ručno izračunati bodovi po kategorijama (redom kao ScoreCategory.values())
+    @Test
+    void handComputedScores() {
+        assertScores(new int[]{3, 3, 3, 5, 5}, 0, 0, 9, 0, 10, 0, 19, 0, 19, 0, 0, 0, 19);
+        assertScores(new int[]{6, 6, 6, 6, 6}, 0, 0, 0, 0, 0, 30, 30, 30, 0, 0, 0, 50, 30);
+        assertScores(new int[]{1, 2, 3, 4, 6}, 1, 2, 3, 4, 0, 6, 0, 0, 0, 30, 0, 0, 16);
+        assertScores(new int[]{5, 2, 4, 6, 3}, 0, 2, 3, 4, 5, 6, 0, 0, 0, 30, 40, 0, 20);
+        assertScores(new int[]{4, 1, 4, 4, 4}, 1, 0, 0, 16, 0, 0, 17, 17, 0, 0, 0, 0, 17);
+        assertScores(new int[]{3, 4, 1, 6, 3}, 1, 0, 6, 4, 0, 6, 0, 0, 0, 0, 0, 0, 17);
+        assertScores(new int[]{2, 2, 2, 2, 2}, 0, 10, 0, 0, 0, 0, 10, 10, 0, 0, 0, 50, 10);
+        assertScores(new int[]{1, 3, 4, 5, 6}, 1, 0, 3, 4, 5, 6, 0, 0, 0, 30, 0, 0, 19);
+    }
+
+    private static void assertScores(int[] dice, int... expected) {
+        int index = ScoreTable.indexOf(dice);
+        ScoreCategory[] categories = ScoreCategory.values();
+        assertEquals(categories.length, expected.length);
+        for (int i = 0; i < categories.length; i++) {
+            assertEquals(expected[i], ScoreTable.score(index, categories[i]), Arrays.toString(dice) + " " + categories[i]);
+            assertEquals(expected[i], ScoreCalculator.calculate(categories[i], dice), Arrays.toString(dice) + " " + categories[i]);
+        }
+    }
+
+    @Test
+    void thereAre252Multisets() {
+        assertEquals(252, ScoreTable.MULTISET_COUNT);
+
+        Set<Integer> indexes = new HashSet<>();
+        for (int key = 0; key < ScoreTable.KEY_COUNT; key++) {
+            indexes.add(ScoreTable.indexOf(roll(key)));
+        }
+        assertEquals(ScoreTable.MULTISET_COUNT, indexes.size());
+    }
+
+    @Test
+    void indexIgnoresDiceOrder() {
+        for (int key = 0; key < ScoreTable.KEY_COUNT; key++) {
+            int[] dice = roll(key);
+            int[] sorted = dice.clone();
+            Arrays.sort(sorted);
+
+            assertEquals(ScoreTable.indexOf(sorted), ScoreTable.indexOf(dice), Arrays.toString(dice));
+            assertEquals(ScoreTable.indexOf(sorted), ScoreTable.indexOfKey(ScoreTable.key(dice)), Arrays.toString(dice));
+            // Multiset na indeksu sadrži upravo ove kockice
+            assertEquals(Arrays.toString(sorted), Arrays.toString(ScoreTable.dice(ScoreTable.indexOf(dice))));
+        }
+    }
+}